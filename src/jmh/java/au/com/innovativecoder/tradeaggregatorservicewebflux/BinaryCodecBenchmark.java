@@ -0,0 +1,137 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.config.BinaryCodecs;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.CustomerInformation;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.Holding;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeResponse;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares JSON, CBOR and Smile for the payloads exchanged with the customer service, through the same Spring
+ * codecs the server and the WebClients use.
+ *
+ * The encoded size of each payload is logged once per format during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryCodecBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryCodecBenchmark.class);
+
+    private static final ResolvableType CUSTOMER_INFORMATION_TYPE = ResolvableType.forClass(CustomerInformation.class);
+    private static final ResolvableType STOCK_TRADE_RESPONSE_TYPE = ResolvableType.forClass(StockTradeResponse.class);
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private final CustomerInformation customerInformation = new CustomerInformation(1, "Sam", 10000, List.of(
+            new Holding(Ticker.AMAZON, 10),
+            new Holding(Ticker.APPLE, 25),
+            new Holding(Ticker.BABATATA, 5),
+            new Holding(Ticker.GOOGLE, 40)
+    ));
+    private final StockTradeResponse stockTradeResponse = new StockTradeResponse(1, Ticker.APPLE, 120, 10, TradeAction.BUY, 1200, 8800);
+
+    private Encoder<Object> encoder;
+    private Decoder<Object> decoder;
+    private MediaType mediaType;
+    private byte[] encodedCustomerInformation;
+    private byte[] encodedStockTradeResponse;
+
+    @Setup
+    public void setup() {
+        switch (this.format) {
+            case "json" -> {
+                var objectMapper = Jackson2ObjectMapperBuilder.json().build();
+                this.encoder = new Jackson2JsonEncoder(objectMapper);
+                this.decoder = new Jackson2JsonDecoder(objectMapper);
+                this.mediaType = MediaType.APPLICATION_JSON;
+            }
+            case "cbor" -> {
+                var objectMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+                this.encoder = new Jackson2CborEncoder(objectMapper, MediaType.APPLICATION_CBOR);
+                this.decoder = new Jackson2CborDecoder(objectMapper, MediaType.APPLICATION_CBOR);
+                this.mediaType = MediaType.APPLICATION_CBOR;
+            }
+            case "smile" -> {
+                var objectMapper = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+                this.encoder = new Jackson2SmileEncoder(objectMapper, BinaryCodecs.APPLICATION_SMILE);
+                this.decoder = new Jackson2SmileDecoder(objectMapper, BinaryCodecs.APPLICATION_SMILE);
+                this.mediaType = BinaryCodecs.APPLICATION_SMILE;
+            }
+            default -> throw new IllegalArgumentException(this.format);
+        }
+        this.encodedCustomerInformation = this.encode(this.customerInformation, CUSTOMER_INFORMATION_TYPE);
+        this.encodedStockTradeResponse = this.encode(this.stockTradeResponse, STOCK_TRADE_RESPONSE_TYPE);
+        log.info("{} payload bytes : customerInformation={} stockTradeResponse={}",
+                this.format, this.encodedCustomerInformation.length, this.encodedStockTradeResponse.length);
+    }
+
+    @Benchmark
+    public byte[] encodeCustomerInformation() {
+        return this.encode(this.customerInformation, CUSTOMER_INFORMATION_TYPE);
+    }
+
+    @Benchmark
+    public Object decodeCustomerInformation() {
+        return this.decoder.decode(DefaultDataBufferFactory.sharedInstance.wrap(this.encodedCustomerInformation), CUSTOMER_INFORMATION_TYPE, this.mediaType, Map.of());
+    }
+
+    @Benchmark
+    public byte[] encodeStockTradeResponse() {
+        return this.encode(this.stockTradeResponse, STOCK_TRADE_RESPONSE_TYPE);
+    }
+
+    @Benchmark
+    public Object decodeStockTradeResponse() {
+        return this.decoder.decode(DefaultDataBufferFactory.sharedInstance.wrap(this.encodedStockTradeResponse), STOCK_TRADE_RESPONSE_TYPE, this.mediaType, Map.of());
+    }
+
+    private byte[] encode(Object value, ResolvableType type) {
+        var buffer = this.encoder.encodeValue(value, DefaultDataBufferFactory.sharedInstance, type, this.mediaType, Map.of());
+        try {
+            var bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+}
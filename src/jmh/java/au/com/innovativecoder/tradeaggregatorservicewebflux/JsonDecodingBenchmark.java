@@ -0,0 +1,63 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes the downstream payloads through the same `Jackson2JsonDecoder` path the WebClients use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonDecodingBenchmark {
+
+    private static final ResolvableType PRICE_UPDATE_TYPE = ResolvableType.forClass(PriceUpdate.class);
+    private static final ResolvableType STOCK_TRADE_RESPONSE_TYPE = ResolvableType.forClass(StockTradeResponse.class);
+
+    private Jackson2JsonDecoder decoder;
+    private byte[] priceUpdate;
+    private byte[] stockTradeResponse;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        var objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        this.decoder = new Jackson2JsonDecoder(objectMapper);
+        this.priceUpdate = objectMapper.writeValueAsBytes(new PriceUpdate(Ticker.APPLE, 120, LocalDateTime.of(2024, 8, 1, 10, 15, 30, 123456789)));
+        this.stockTradeResponse = objectMapper.writeValueAsBytes(new StockTradeResponse(1, Ticker.APPLE, 120, 10, TradeAction.BUY, 1200, 8800));
+    }
+
+    @Benchmark
+    public Object priceUpdate() {
+        return this.decoder.decode(DefaultDataBufferFactory.sharedInstance.wrap(this.priceUpdate), PRICE_UPDATE_TYPE, MediaType.APPLICATION_JSON, Map.of());
+    }
+
+    @Benchmark
+    public Object stockTradeResponse() {
+        return this.decoder.decode(DefaultDataBufferFactory.sharedInstance.wrap(this.stockTradeResponse), STOCK_TRADE_RESPONSE_TYPE, MediaType.APPLICATION_JSON, Map.of());
+    }
+}
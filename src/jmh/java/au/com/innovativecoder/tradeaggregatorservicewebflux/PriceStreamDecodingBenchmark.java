@@ -0,0 +1,97 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.client.PriceUpdateDecoder;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEventHttpMessageReader;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.client.reactive.MockClientHttpResponse;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes an upstream price stream of 1000 events, received in 8 KB buffers that split events, through the
+ * generic `bodyToFlux(PriceUpdate.class)` path and through `PriceUpdateDecoder`.
+ *
+ * Scores are per event. Run with `-PjmhProfilers=gc` to compare `gc.alloc.rate.norm`, the bytes allocated per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceStreamDecodingBenchmark {
+
+    private static final int EVENTS = 1000;
+    private static final int BUFFER_SIZE = 8192;
+    private static final ResolvableType PRICE_UPDATE_TYPE = ResolvableType.forClass(PriceUpdate.class);
+
+    private ServerSentEventHttpMessageReader reader;
+    private List<byte[]> chunks;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        // Times are written as ISO-8601 strings, as the Spring Boot services do.
+        var objectMapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        this.reader = new ServerSentEventHttpMessageReader(new Jackson2JsonDecoder(objectMapper));
+        var stream = new ByteArrayOutputStream();
+        var time = LocalDateTime.of(2024, 8, 1, 10, 15, 30, 123456789);
+        for (var i = 0; i < EVENTS; i++) {
+            var priceUpdate = new PriceUpdate(Ticker.values()[i % Ticker.values().length], 100 + i, time.plusNanos(i * 1_000_000L));
+            stream.writeBytes("data:".getBytes());
+            stream.writeBytes(objectMapper.writeValueAsBytes(priceUpdate));
+            stream.writeBytes("\n\n".getBytes());
+        }
+        var bytes = stream.toByteArray();
+        this.chunks = new ArrayList<>();
+        for (var offset = 0; offset < bytes.length; offset += BUFFER_SIZE) {
+            this.chunks.add(Arrays.copyOfRange(bytes, offset, Math.min(bytes.length, offset + BUFFER_SIZE)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public Object generic() {
+        var response = new MockClientHttpResponse(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.TEXT_EVENT_STREAM);
+        response.setBody(this.buffers());
+        return this.reader.read(PRICE_UPDATE_TYPE, response, Map.of()).blockLast();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public Object specialized() {
+        return PriceUpdateDecoder.decode(this.buffers()).blockLast();
+    }
+
+    private Flux<DataBuffer> buffers() {
+        return Flux.fromIterable(this.chunks).map(DefaultDataBufferFactory.sharedInstance::wrap);
+    }
+}
@@ -0,0 +1,109 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.client.StockServiceClient;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceIngestionEngine;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceStreamBroadcaster;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEventHttpMessageWriter;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of one price tick delivered to a number of SSE subscribers.
+ *
+ * `sharedFrames` goes through `PriceIngestionEngine` and `PriceStreamBroadcaster`, which encode every tick once. `perSubscriberWriter`
+ * is the baseline of one `ServerSentEventHttpMessageWriter` per subscriber, which encodes every tick once per
+ * subscriber. Written buffers are consumed by a black hole instead of a socket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceStreamEncodingBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int subscribers;
+
+    private final PriceUpdate priceUpdate = new PriceUpdate(Ticker.APPLE, 120, LocalDateTime.of(2024, 8, 1, 10, 15, 30));
+    private Sinks.Many<PriceUpdate> sharedSink;
+    private Sinks.Many<PriceUpdate> perSubscriberSink;
+    private PriceIngestionEngine priceIngestionEngine;
+    private Disposable.Composite subscriptions;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        var objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        this.sharedSink = Sinks.many().multicast().directBestEffort();
+        this.perSubscriberSink = Sinks.many().multicast().directBestEffort();
+        this.subscriptions = Disposables.composite();
+
+        var meterRegistry = new SimpleMeterRegistry();
+        var updates = this.sharedSink.asFlux();
+        var stockServiceClient = new StockServiceClient(null, null, null, null, meterRegistry) {
+            @Override
+            public Flux<PriceUpdate> priceUpdates() {
+                return updates;
+            }
+        };
+        this.priceIngestionEngine = new PriceIngestionEngine(stockServiceClient, Duration.ofMillis(100), Duration.ofSeconds(1), Duration.ofSeconds(10), meterRegistry);
+        this.priceIngestionEngine.start();
+        var broadcaster = new PriceStreamBroadcaster(this.priceIngestionEngine, objectMapper, 1024, meterRegistry);
+        var writer = new ServerSentEventHttpMessageWriter(new Jackson2JsonEncoder(objectMapper));
+        for (int i = 0; i < this.subscribers; i++) {
+            this.subscriptions.add(broadcaster.write(broadcaster.frames(List.of(), null), this.response(blackhole)).subscribe());
+            this.subscriptions.add(writer.write(this.perSubscriberSink.asFlux(), ResolvableType.forClass(PriceUpdate.class), MediaType.TEXT_EVENT_STREAM, this.response(blackhole), Map.of()).subscribe());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.subscriptions.dispose();
+        this.priceIngestionEngine.stop();
+    }
+
+    @Benchmark
+    public void sharedFrames() {
+        this.sharedSink.tryEmitNext(this.priceUpdate);
+    }
+
+    @Benchmark
+    public void perSubscriberWriter() {
+        this.perSubscriberSink.tryEmitNext(this.priceUpdate);
+    }
+
+    private MockServerHttpResponse response(Blackhole blackhole) {
+        var response = new MockServerHttpResponse();
+        response.setWriteHandler(body -> body.doOnNext(blackhole::consume).then());
+        return response;
+    }
+}
@@ -0,0 +1,41 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.TradeRequest;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.validator.RequestValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestValidatorBenchmark {
+
+    private final TradeRequest valid = new TradeRequest(Ticker.APPLE, TradeAction.BUY, 10);
+    private final TradeRequest invalidQuantity = new TradeRequest(Ticker.APPLE, TradeAction.BUY, 0);
+
+    @Benchmark
+    public void validRequest(Blackhole blackhole) {
+        RequestValidator.validate().apply(Mono.just(this.valid)).subscribe(blackhole::consume, blackhole::consume);
+    }
+
+    @Benchmark
+    public void invalidQuantity(Blackhole blackhole) {
+        RequestValidator.validate().apply(Mono.just(this.invalidQuantity)).subscribe(blackhole::consume, blackhole::consume);
+    }
+}
@@ -0,0 +1,42 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebClients answering every request in memory with a fixed JSON body, so benchmarks exercise the real
+ * client code and response decoding without a network round trip.
+ */
+final class StubWebClients {
+
+    private StubWebClients() {
+    }
+
+    /**
+     * Creates a WebClient that answers every request with the given value serialized as JSON.
+     *
+     * @param objectMapper the object mapper to serialize the value with
+     * @param value the value to answer with
+     * @return a WebClient answering in memory
+     */
+    static WebClient json(ObjectMapper objectMapper, Object value) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException(ex);
+        }
+        return WebClient.builder()
+                .exchangeFunction(request -> Mono.fromSupplier(() -> ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(body)
+                        .build()))
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeResponse;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.journal.TradeJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures replaying the trade journal.
+ *
+ * Setup journals one million trades of 100 customers over 8 MB segments, then reopens the journal the way the
+ * service does on start. `replayAll` reads every record, `replayCustomer` reads the trades of one customer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeJournalBenchmark {
+
+    private static final int TRADES = 1_000_000;
+
+    private Path directory;
+    private TradeJournal tradeJournal;
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        this.directory = Files.createTempDirectory("trade-journal");
+        var writer = this.journal();
+        for (var i = 0; i < TRADES; i++) {
+            writer.append(new StockTradeResponse(i % 100, Ticker.APPLE, 120, 10, TradeAction.BUY, 1200, 8800));
+            if (i % 50_000 == 0) {
+                Thread.sleep(10);
+            }
+        }
+        writer.stop();
+        this.tradeJournal = this.journal();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, InterruptedException {
+        this.tradeJournal.stop();
+        FileSystemUtils.deleteRecursively(this.directory);
+    }
+
+    @Benchmark
+    public long replayAll() {
+        return this.tradeJournal.replay(0, Long.MAX_VALUE).count().block();
+    }
+
+    @Benchmark
+    public long replayCustomer() {
+        return this.tradeJournal.trades(42, 0, Long.MAX_VALUE).count().block();
+    }
+
+    private TradeJournal journal() throws IOException {
+        var journal = new TradeJournal(this.directory, DataSize.ofMegabytes(8), TRADES, TradeJournal.FsyncPolicy.NEVER, Duration.ofSeconds(1),
+                Duration.ofDays(7), DataSize.ofGigabytes(1), new SimpleMeterRegistry());
+        journal.start();
+        return journal;
+    }
+}
@@ -0,0 +1,121 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.client.CustomerServiceClient;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.client.StockServiceClient;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockPriceResponse;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeResponse;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.TradeRequest;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.journal.TradeJournal;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.AdaptiveConcurrencyLimiter;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.HedgeProperties;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.LimiterProperties;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.RequestHedger;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.service.CustomerInformationCache;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.service.CustomerPortfolioService;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.service.LivePriceTable;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.service.TradeIdempotencyStore;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceIngestionEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs `CustomerPortfolioService.trade` end to end against in-memory stub clients.
+ *
+ * `livePrice` trades a ticker with a fresh price in the live price table, `fallbackPrice` trades a ticker
+ * without one, so the price is looked up from the stub stock service first. Executed trades are journaled, as
+ * in the service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradePipelineBenchmark {
+
+    private final TradeRequest livePriceRequest = new TradeRequest(Ticker.APPLE, TradeAction.BUY, 10);
+    private final TradeRequest fallbackPriceRequest = new TradeRequest(Ticker.GOOGLE, TradeAction.BUY, 10);
+    private PriceIngestionEngine priceIngestionEngine;
+    private LivePriceTable livePriceTable;
+    private Path journalDirectory;
+    private TradeJournal tradeJournal;
+    private CustomerPortfolioService customerPortfolioService;
+
+    @Setup
+    public void setup() throws IOException {
+        var objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        var meterRegistry = new SimpleMeterRegistry();
+        var customerServiceClient = new CustomerServiceClient(
+                StubWebClients.json(objectMapper, new StockTradeResponse(1, Ticker.APPLE, 120, 10, TradeAction.BUY, 1200, 8800)),
+                new AdaptiveConcurrencyLimiter("customer-service", new LimiterProperties(), meterRegistry),
+                new RequestHedger("customer-service", new HedgeProperties(), meterRegistry),
+                meterRegistry
+        );
+        var priceFeed = Flux.just(new PriceUpdate(Ticker.APPLE, 120, LocalDateTime.now())).concatWith(Flux.never());
+        var stockServiceClient = new StockServiceClient(
+                StubWebClients.json(objectMapper, new StockPriceResponse(Ticker.GOOGLE, 87)),
+                null,
+                new AdaptiveConcurrencyLimiter("stock-service", new LimiterProperties(), meterRegistry),
+                new RequestHedger("stock-service", new HedgeProperties(), meterRegistry),
+                meterRegistry
+        ) {
+            @Override
+            public Flux<PriceUpdate> priceUpdates() {
+                return priceFeed;
+            }
+        };
+        this.priceIngestionEngine = new PriceIngestionEngine(stockServiceClient, Duration.ofMillis(100), Duration.ofSeconds(1), Duration.ofDays(1), meterRegistry);
+        this.priceIngestionEngine.start();
+        this.livePriceTable = new LivePriceTable(stockServiceClient, this.priceIngestionEngine, Duration.ofDays(1), meterRegistry);
+        this.livePriceTable.start();
+        var customerInformationCache = new CustomerInformationCache(customerServiceClient, 10_000, Duration.ofSeconds(30), meterRegistry);
+        this.journalDirectory = Files.createTempDirectory("trade-journal");
+        this.tradeJournal = new TradeJournal(this.journalDirectory, DataSize.ofMegabytes(64), 65536, TradeJournal.FsyncPolicy.INTERVAL, Duration.ofSeconds(1),
+                Duration.ofDays(7), DataSize.ofGigabytes(1), meterRegistry);
+        this.tradeJournal.start();
+        this.customerPortfolioService = new CustomerPortfolioService(this.livePriceTable, customerServiceClient, customerInformationCache, this.tradeJournal,
+                new TradeIdempotencyStore(DataSize.ofMegabytes(16), Duration.ofHours(1), meterRegistry), 64, 32, meterRegistry);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, InterruptedException {
+        this.livePriceTable.stop();
+        this.priceIngestionEngine.stop();
+        this.tradeJournal.stop();
+        FileSystemUtils.deleteRecursively(this.journalDirectory);
+    }
+
+    @Benchmark
+    public Object livePrice() {
+        return this.customerPortfolioService.trade(1, this.livePriceRequest).block();
+    }
+
+    @Benchmark
+    public Object fallbackPrice() {
+        return this.customerPortfolioService.trade(1, this.fallbackPriceRequest).block();
+    }
+}
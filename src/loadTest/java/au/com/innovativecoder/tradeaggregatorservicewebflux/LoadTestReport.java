@@ -0,0 +1,70 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The results of a load test run.
+ *
+ * @param scenarios the result of every scenario
+ * @param allocationRate the heap allocation rate of the whole process during measurement, in MB per second
+ */
+record LoadTestReport(List<ScenarioResult> scenarios, double allocationRate) {
+
+    String format() {
+        var lines = new StringBuilder();
+        lines.append(String.format(Locale.ROOT, "%-14s %10s %8s %12s %10s %10s %10s %10s%n",
+                "scenario", "count", "errors", "throughput/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (var s : this.scenarios) {
+            lines.append(String.format(Locale.ROOT, "%-14s %10d %8d %12.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    s.name(), s.requests(), s.errors(), s.throughput(), s.p50(), s.p99(), s.p999(), s.max()));
+        }
+        lines.append(String.format(Locale.ROOT, "allocation rate %.1f MB/s", this.allocationRate));
+        return lines.toString();
+    }
+
+    /**
+     * Checks this report against the error rate limit and, when given, against the results of a baseline run.
+     *
+     * Latency percentiles and the allocation rate may grow, and throughput may shrink, by at most the given
+     * relative regression.
+     *
+     * @param baseline the results of an earlier run, or null
+     * @param maxRegression the tolerated relative regression
+     * @param maxErrorRate the tolerated share of failed requests per scenario
+     * @return a description of every violated threshold, empty when the run passes
+     */
+    List<String> violations(LoadTestReport baseline, double maxRegression, double maxErrorRate) {
+        var violations = new ArrayList<String>();
+        for (var current : this.scenarios) {
+            if (current.errorRate() > maxErrorRate) {
+                violations.add(String.format(Locale.ROOT, "%s error rate %.4f exceeds %.4f", current.name(), current.errorRate(), maxErrorRate));
+            }
+            if (baseline == null) {
+                continue;
+            }
+            baseline.scenarios().stream()
+                    .filter(previous -> previous.name().equals(current.name()))
+                    .findFirst()
+                    .ifPresent(previous -> {
+                        higher(violations, current.name() + " p50", current.p50(), previous.p50(), maxRegression);
+                        higher(violations, current.name() + " p99", current.p99(), previous.p99(), maxRegression);
+                        higher(violations, current.name() + " p999", current.p999(), previous.p999(), maxRegression);
+                        if (current.throughput() < previous.throughput() * (1 - maxRegression)) {
+                            violations.add(String.format(Locale.ROOT, "%s throughput %.1f/s fell below baseline %.1f/s", current.name(), current.throughput(), previous.throughput()));
+                        }
+                    });
+        }
+        if (baseline != null) {
+            higher(violations, "allocation rate", this.allocationRate, baseline.allocationRate(), maxRegression);
+        }
+        return violations;
+    }
+
+    private static void higher(List<String> violations, String metric, double current, double previous, double maxRegression) {
+        if (current > previous * (1 + maxRegression)) {
+            violations.add(String.format(Locale.ROOT, "%s %.2f exceeds baseline %.2f by more than %.0f%%", metric, current, previous, maxRegression * 100));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposables;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Runs the aggregator in process against stub customer and stock services and measures it under load.
+ *
+ * The trade endpoint and the price stream are loaded at the same time. The results are printed and written as
+ * JSON, and the process exits with status 1 when a threshold of {@link LoadTestReport#violations} is exceeded.
+ * Allocation is measured for the whole process, so it includes the stubs and the load generator.
+ */
+public final class LoadTestRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var settings = LoadTestSettings.fromSystemProperties();
+        var objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        LoadTestReport report;
+        try (var stubs = new StubServices(objectMapper, settings);
+             var context = new SpringApplicationBuilder(TradeAggregatorServiceWebfluxApplication.class)
+                     .bannerMode(Banner.Mode.OFF)
+                     .run(aggregatorArgs(stubs.baseUrl(), args))) {
+            var port = ((ReactiveWebServerApplicationContext) context).getWebServer().getPort();
+            var client = loadClient("http://localhost:" + port);
+            var trades = new TradeLoad(client, settings);
+            var priceStream = new PriceStreamLoad(client, settings);
+            var running = Disposables.composite(priceStream.start(), trades.start());
+
+            log.info("warming up for {}", settings.warmup());
+            Thread.sleep(settings.warmup());
+            trades.reset();
+            priceStream.reset();
+            var allocatedBefore = allocatedBytes();
+            var start = System.nanoTime();
+
+            log.info("measuring for {}", settings.duration());
+            Thread.sleep(settings.duration());
+            var window = Duration.ofNanos(System.nanoTime() - start);
+            var allocationRate = (allocatedBytes() - allocatedBefore) / (1024.0 * 1024.0) / (window.toNanos() / 1e9);
+            report = new LoadTestReport(List.of(trades.result(window), priceStream.result(window)), allocationRate);
+            running.dispose();
+        }
+
+        log.info("load test results\n{}", report.format());
+        write(objectMapper, report, settings);
+        var violations = report.violations(baseline(objectMapper, settings), settings.maxRegression(), settings.maxErrorRate());
+        if (!violations.isEmpty()) {
+            violations.forEach(violation -> log.error("threshold exceeded : {}", violation));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Points the aggregator at the stubs on a random port. Passed as command line arguments, so that they take
+     * precedence over `application.properties`.
+     */
+    private static String[] aggregatorArgs(String stubsUrl, String[] args) {
+        return Stream.concat(Stream.of("--server.port=0", "--customer.service.url=" + stubsUrl, "--stock.service.url=" + stubsUrl), Stream.of(args))
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Creates the client of the load generator, with enough connections that the generator does not throttle the
+     * open workload by itself.
+     */
+    private static WebClient loadClient(String baseUrl) {
+        var provider = ConnectionProvider.builder("load-test")
+                .maxConnections(4096)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(provider)))
+                .build();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getTotalThreadAllocatedBytes();
+    }
+
+    private static void write(ObjectMapper objectMapper, LoadTestReport report, LoadTestSettings settings) throws IOException {
+        var results = settings.results().toAbsolutePath();
+        Files.createDirectories(results.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(results.toFile(), report);
+        log.info("results written to {}", results);
+    }
+
+    private static LoadTestReport baseline(ObjectMapper objectMapper, LoadTestSettings settings) throws IOException {
+        if (Objects.isNull(settings.baseline())) {
+            return null;
+        }
+        return objectMapper.readValue(settings.baseline().toFile(), LoadTestReport.class);
+    }
+}
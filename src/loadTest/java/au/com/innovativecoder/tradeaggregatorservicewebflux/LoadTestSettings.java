@@ -0,0 +1,52 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings of a load test run, read from `loadtest.*` system properties.
+ *
+ * @param warmup how long load is applied before measuring starts
+ * @param duration how long load is measured for
+ * @param tradeRate the number of trade requests started per second, regardless of how many are still in flight
+ * @param customers the number of distinct customer IDs the trades are spread over
+ * @param sseSubscribers the number of concurrent price stream subscribers
+ * @param stubLatency the fixed latency of every stub response
+ * @param stubJitter the maximum random latency added on top of the fixed latency
+ * @param stubErrorRate the share of stub responses that fail with a 503
+ * @param priceInterval the interval between two price updates of the stub price stream
+ * @param results the file to write the results to
+ * @param baseline the results of an earlier run to compare against, or null to skip the comparison
+ * @param maxRegression the tolerated relative regression of any latency percentile or throughput against the baseline
+ * @param maxErrorRate the tolerated share of failed trade requests
+ */
+record LoadTestSettings(Duration warmup, Duration duration, int tradeRate, int customers, int sseSubscribers,
+                        Duration stubLatency, Duration stubJitter, double stubErrorRate, Duration priceInterval,
+                        Path results, Path baseline, double maxRegression, double maxErrorRate) {
+
+    static LoadTestSettings fromSystemProperties() {
+        var baseline = System.getProperty("loadtest.baseline");
+        return new LoadTestSettings(
+                duration("loadtest.warmup", "10s"),
+                duration("loadtest.duration", "30s"),
+                Integer.parseInt(System.getProperty("loadtest.trade-rate", "500")),
+                Integer.parseInt(System.getProperty("loadtest.customers", "1000")),
+                Integer.parseInt(System.getProperty("loadtest.sse-subscribers", "200")),
+                duration("loadtest.stub.latency", "5ms"),
+                duration("loadtest.stub.jitter", "5ms"),
+                Double.parseDouble(System.getProperty("loadtest.stub.error-rate", "0")),
+                duration("loadtest.stub.price-interval", "10ms"),
+                Path.of(System.getProperty("loadtest.results", "build/reports/load-test/results.json")),
+                Objects.isNull(baseline) ? null : Path.of(baseline),
+                Double.parseDouble(System.getProperty("loadtest.max-regression", "0.1")),
+                Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"))
+        );
+    }
+
+    private static Duration duration(String key, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(key, defaultValue));
+    }
+}
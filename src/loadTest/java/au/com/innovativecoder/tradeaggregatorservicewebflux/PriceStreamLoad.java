@@ -0,0 +1,65 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import org.HdrHistogram.Recorder;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds a fixed number of subscribers on `GET /stock/price-stream`.
+ *
+ * The latency of an event is the time between the stub stock service emitting it and a subscriber receiving it.
+ * A subscriber whose stream terminates counts as an error.
+ */
+final class PriceStreamLoad {
+
+    private final WebClient client;
+    private final LoadTestSettings settings;
+    private final Recorder latencies = new Recorder(3);
+    private final LongAdder errors = new LongAdder();
+
+    PriceStreamLoad(WebClient client, LoadTestSettings settings) {
+        this.client = client;
+        this.settings = settings;
+    }
+
+    Disposable start() {
+        var subscriptions = Disposables.composite();
+        for (int i = 0; i < this.settings.sseSubscribers(); i++) {
+            subscriptions.add(this.client.get()
+                    .uri("/stock/price-stream")
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .retrieve()
+                    .bodyToFlux(PriceUpdate.class)
+                    .subscribe(this::record, ex -> this.errors.increment(), this.errors::increment));
+        }
+        return subscriptions;
+    }
+
+    /**
+     * Starts a new measurement window, discarding everything recorded so far.
+     */
+    void reset() {
+        this.latencies.reset();
+        this.errors.reset();
+    }
+
+    ScenarioResult result(Duration window) {
+        return ScenarioResult.of("price-stream", this.latencies.getIntervalHistogram(), this.errors.sum(), window);
+    }
+
+    private void record(PriceUpdate priceUpdate) {
+        if (Objects.isNull(priceUpdate.time())) {
+            return;
+        }
+        var latency = Duration.between(priceUpdate.time(), LocalDateTime.now());
+        this.latencies.recordValue(Math.max(0, latency.toNanos() / 1000));
+    }
+}
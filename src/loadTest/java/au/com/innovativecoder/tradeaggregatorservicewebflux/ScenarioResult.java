@@ -0,0 +1,32 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+
+/**
+ * The measured outcome of one load test scenario. Latencies are in milliseconds.
+ */
+record ScenarioResult(String name, long requests, long errors, double throughput,
+                      double p50, double p99, double p999, double max) {
+
+    /**
+     * Summarises a histogram of latencies recorded in microseconds over the given measurement window.
+     */
+    static ScenarioResult of(String name, Histogram latencies, long errors, Duration window) {
+        var requests = latencies.getTotalCount();
+        return new ScenarioResult(name, requests, errors, requests * 1e9 / window.toNanos(),
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()));
+    }
+
+    double errorRate() {
+        return this.requests == 0 ? 0 : (double) this.errors / this.requests;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
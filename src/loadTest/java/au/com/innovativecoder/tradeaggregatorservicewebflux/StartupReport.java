@@ -0,0 +1,44 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The startup times of every variant, each the median of its runs.
+ *
+ * @param variants the result of every variant, the first one being the unoptimized baseline
+ */
+record StartupReport(List<Variant> variants) {
+
+    /**
+     * @param name the name of the variant
+     * @param runs the number of runs
+     * @param firstResponse the time from launching the JVM to answering the first request, in milliseconds
+     * @param ready the time from launching the JVM to reporting ready to accept traffic, in milliseconds
+     * @param firstTrade the latency of the first trade sent once ready, in milliseconds
+     */
+    record Variant(String name, int runs, double firstResponse, double ready, double firstTrade) {
+    }
+
+    /**
+     * Formats every time with its change against the baseline. AOT and CDS shorten the time to the first response,
+     * while the warm-up delays readiness to shorten the first trade.
+     */
+    String format() {
+        var lines = new StringBuilder();
+        lines.append(String.format(Locale.ROOT, "%-18s %6s %24s %24s %24s%n",
+                "variant", "runs", "first response ms", "ready ms", "first trade ms"));
+        var baseline = this.variants.get(0);
+        for (var v : this.variants) {
+            lines.append(String.format(Locale.ROOT, "%-18s %6d %24s %24s %24s%n", v.name(), v.runs(),
+                    change(v.firstResponse(), baseline.firstResponse()),
+                    change(v.ready(), baseline.ready()),
+                    change(v.firstTrade(), baseline.firstTrade())));
+        }
+        return lines.toString();
+    }
+
+    private static String change(double value, double baseline) {
+        return String.format(Locale.ROOT, "%.1f (%+.0f%%)", value, 100 * (value / baseline - 1));
+    }
+}
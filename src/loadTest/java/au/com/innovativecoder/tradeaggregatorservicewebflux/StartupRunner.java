@@ -0,0 +1,236 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.DoubleStream;
+
+/**
+ * Starts the packaged application in child JVMs against stub customer and stock services, either to create its
+ * CDS archive or to measure how quickly it starts.
+ *
+ * A training run starts the application with `-XX:ArchiveClassesAtExit` and AOT processing enabled, sends it
+ * customer lookups, trades and a price stream subscription, and stops it, so the archive covers the request paths
+ * as well as the context refresh. A measurement starts the application repeatedly in every variant, from the
+ * plain JVM up to AOT, CDS and warm-up combined, and reports the median times to the first answered request, to
+ * readiness and the latency of the first trade. The first answered request is a liveness probe, answered before
+ * application runners run, so the warm-up shows in the time to readiness and the first trade only. The archives a
+ * measurement uses are trained for it first.
+ */
+public final class StartupRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupRunner.class);
+    private static final String AOT = "-Dspring.aot.enabled=true";
+    private static final String TRADE = """
+            {"ticker": "APPLE", "action": "BUY", "quantity": 1}
+            """;
+
+    private final StartupSettings settings;
+    private final String stubsUrl;
+    private final Path workDirectory;
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    private StartupRunner(StartupSettings settings, String stubsUrl) {
+        this.settings = settings;
+        this.stubsUrl = stubsUrl;
+        this.workDirectory = settings.application().toAbsolutePath().getParent();
+    }
+
+    public static void main(String[] args) throws Exception {
+        var settings = StartupSettings.fromSystemProperties();
+        var objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        try (var stubs = new StubServices(objectMapper, LoadTestSettings.fromSystemProperties())) {
+            var runner = new StartupRunner(settings, stubs.baseUrl());
+            if (settings.isTraining()) {
+                runner.train(settings.archive(), true);
+                return;
+            }
+            var report = runner.measure();
+            log.info("startup results\n{}", report.format());
+            var results = settings.results().toAbsolutePath();
+            Files.createDirectories(results.getParent());
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(results.toFile(), report);
+            log.info("results written to {}", results);
+        }
+    }
+
+    /**
+     * Creates a CDS archive from a training run, with or without AOT processing enabled.
+     */
+    private void train(Path archive, boolean aot) throws Exception {
+        Files.deleteIfExists(archive);
+        var jvmArgs = new ArrayList<String>();
+        jvmArgs.add("-XX:ArchiveClassesAtExit=" + archive.toAbsolutePath());
+        if (aot) {
+            jvmArgs.add(AOT);
+        }
+        log.info("training {}", archive);
+        this.run("training", jvmArgs, List.of(), true);
+        if (!Files.exists(archive)) {
+            throw new IllegalStateException("training run did not create " + archive);
+        }
+        log.info("created {} of {} KB", archive, Files.size(archive) / 1024);
+    }
+
+    /**
+     * Starts the variants in turn rather than one after the other, so that a change of the machine's load over
+     * the measurement affects all of them alike.
+     */
+    private StartupReport measure() throws Exception {
+        var cdsArchive = this.workDirectory.resolve("measure-cds.jsa");
+        var aotCdsArchive = this.workDirectory.resolve("measure-aot-cds.jsa");
+        this.train(cdsArchive, false);
+        this.train(aotCdsArchive, true);
+        var variants = new LinkedHashMap<String, List<List<String>>>();
+        variants.put("baseline", List.of(List.of(), List.of()));
+        variants.put("aot", List.of(List.of(AOT), List.of()));
+        variants.put("cds", List.of(List.of("-XX:SharedArchiveFile=" + cdsArchive), List.of()));
+        variants.put("aot+cds", List.of(List.of(AOT, "-XX:SharedArchiveFile=" + aotCdsArchive), List.of()));
+        variants.put("aot+cds+warm-up", List.of(List.of(AOT, "-XX:SharedArchiveFile=" + aotCdsArchive), List.of("--startup.warm-up.enabled=true")));
+
+        var timings = new LinkedHashMap<String, List<Timing>>();
+        for (var run = 1; run <= this.settings.runs(); run++) {
+            for (var variant : variants.entrySet()) {
+                var timing = this.run(variant.getKey(), variant.getValue().get(0), variant.getValue().get(1), false);
+                log.info("run {} {} : {}", run, variant.getKey(), timing);
+                timings.computeIfAbsent(variant.getKey(), name -> new ArrayList<>()).add(timing);
+            }
+        }
+        return new StartupReport(timings.entrySet().stream()
+                .map(entry -> new StartupReport.Variant(entry.getKey(), entry.getValue().size(),
+                        median(entry.getValue().stream().mapToDouble(Timing::firstResponse)),
+                        median(entry.getValue().stream().mapToDouble(Timing::ready)),
+                        median(entry.getValue().stream().mapToDouble(Timing::firstTrade))))
+                .toList());
+    }
+
+    /**
+     * Starts the application in a child JVM, waits for it to answer and to report ready, sends it a first trade,
+     * optionally the training workload, and stops it gracefully so that a requested CDS archive is written.
+     */
+    private Timing run(String name, List<String> jvmArgs, List<String> applicationArgs, boolean training) throws Exception {
+        var port = freePort();
+        var baseUrl = "http://localhost:" + port;
+        var command = new ArrayList<String>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-jar", this.settings.application().toAbsolutePath().toString(),
+                "--server.port=" + port,
+                "--customer.service.url=" + this.stubsUrl,
+                "--stock.service.url=" + this.stubsUrl,
+                "--trade.journal.directory=" + this.workDirectory.resolve("journal")));
+        command.addAll(applicationArgs);
+        var output = this.workDirectory.resolve("logs").resolve(name + ".log");
+        Files.createDirectories(output.getParent());
+
+        var start = System.nanoTime();
+        var process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(output.toFile())
+                .start();
+        try {
+            this.await(process, URI.create(baseUrl + "/actuator/health/liveness"));
+            var firstResponse = millisSince(start);
+            this.await(process, URI.create(baseUrl + "/actuator/health/readiness"));
+            var ready = millisSince(start);
+            var tradeStart = System.nanoTime();
+            this.trade(baseUrl, 1);
+            var firstTrade = millisSince(tradeStart);
+            if (training) {
+                this.exercise(baseUrl);
+            }
+            return new Timing(firstResponse, ready, firstTrade);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * Polls the given endpoint until it answers with a 200, failing when the application exits or times out.
+     */
+    private void await(Process process, URI uri) throws Exception {
+        var deadline = System.nanoTime() + this.settings.timeout().toNanos();
+        var request = HttpRequest.newBuilder(uri).build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("application exited with " + process.exitValue() + " before " + uri + " answered");
+            }
+            try {
+                if (this.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (ConnectException ex) {
+                // not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException(uri + " did not answer within " + this.settings.timeout());
+    }
+
+    private void exercise(String baseUrl) throws Exception {
+        for (var i = 1; i <= this.settings.trainingRequests(); i++) {
+            this.send(HttpRequest.newBuilder(URI.create(baseUrl + "/customers/" + i)).build());
+            this.trade(baseUrl, i);
+            this.send(HttpRequest.newBuilder(URI.create(baseUrl + "/stock/APPLE/ticks")).build());
+        }
+        var priceStream = HttpRequest.newBuilder(URI.create(baseUrl + "/stock/price-stream"))
+                .header("Accept", "text/event-stream")
+                .build();
+        try (var lines = this.client.send(priceStream, HttpResponse.BodyHandlers.ofLines()).body()) {
+            lines.limit(this.settings.trainingRequests()).forEach(line -> {
+            });
+        }
+    }
+
+    private void trade(String baseUrl, int customerId) throws Exception {
+        this.send(HttpRequest.newBuilder(URI.create(baseUrl + "/customers/" + customerId + "/trade"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(TRADE))
+                .build());
+    }
+
+    private void send(HttpRequest request) throws Exception {
+        var status = this.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " answered " + status);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double millisSince(long start) {
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    private static double median(DoubleStream values) {
+        var sorted = values.sorted().toArray();
+        return sorted.length % 2 == 1 ? sorted[sorted.length / 2] : (sorted[sorted.length / 2 - 1] + sorted[sorted.length / 2]) / 2;
+    }
+
+    private record Timing(double firstResponse, double ready, double firstTrade) {
+    }
+}
@@ -0,0 +1,37 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings of a startup run, read from `startup.*` system properties.
+ *
+ * @param mode `train` to create the CDS archive, or `measure` to compare the startup variants
+ * @param application the application jar extracted from the boot jar, whose manifest lists its dependencies
+ * @param archive the CDS archive created by a training run
+ * @param runs the number of times every variant is started when measuring
+ * @param trainingRequests the number of requests of each kind sent during a training run
+ * @param timeout how long an instance may take to answer its first request and to report ready
+ * @param results the file to write the measurement to
+ */
+record StartupSettings(String mode, Path application, Path archive, int runs, int trainingRequests, Duration timeout, Path results) {
+
+    static StartupSettings fromSystemProperties() {
+        return new StartupSettings(
+                System.getProperty("startup.mode", "measure"),
+                Path.of(Objects.requireNonNull(System.getProperty("startup.application"), "startup.application is required")),
+                Path.of(System.getProperty("startup.archive", "build/startup/application.jsa")),
+                Integer.parseInt(System.getProperty("startup.runs", "5")),
+                Integer.parseInt(System.getProperty("startup.training-requests", "50")),
+                DurationStyle.detectAndParse(System.getProperty("startup.timeout", "60s")),
+                Path.of(System.getProperty("startup.results", "build/reports/startup/results.json"))
+        );
+    }
+
+    boolean isTraining() {
+        return "train".equals(this.mode);
+    }
+}
@@ -0,0 +1,135 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.CustomerInformation;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.Holding;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockPriceResponse;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeRequest;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.resources.LoopResources;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-process stand-ins for the customer and stock services, served by Reactor Netty on an ephemeral port.
+ *
+ * Every request-response endpoint answers after the configured latency plus a random jitter, and fails with
+ * a 503 for the configured share of requests. The price stream emits a random price update at a fixed interval.
+ * The stubs run on their own event loops, so they survive the aggregator releasing the shared Reactor Netty resources.
+ */
+final class StubServices implements AutoCloseable {
+
+    private final ObjectMapper objectMapper;
+    private final LoadTestSettings settings;
+    private final LoopResources loops = LoopResources.create("stub-services");
+    private final DisposableServer server;
+
+    StubServices(ObjectMapper objectMapper, LoadTestSettings settings) {
+        this.objectMapper = objectMapper;
+        this.settings = settings;
+        this.server = HttpServer.create()
+                .port(0)
+                .runOn(this.loops)
+                .route(routes -> routes
+                        .get("/customers/{customerId}", (request, response) -> this.respond(response, this.customerInformation(request)))
+                        .post("/customers/{customerId}/trade", (request, response) -> this.respond(response, request.receive()
+                                .aggregate()
+                                .asByteArray()
+                                .map(body -> this.trade(request, body))))
+                        .get("/stock/price-stream", (request, response) -> this.priceStream(response))
+                        .get("/stock/{ticker}", (request, response) -> this.respond(response, Mono.fromSupplier(() -> this.stockPrice(request)))))
+                .bindNow();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + this.server.port();
+    }
+
+    @Override
+    public void close() {
+        this.server.disposeNow();
+        this.loops.dispose();
+    }
+
+    /**
+     * Answers with the given body after the configured latency. The body is resolved first, so a request body is
+     * consumed as soon as it arrives.
+     */
+    private Mono<Void> respond(HttpServerResponse response, Mono<?> body) {
+        var random = ThreadLocalRandom.current();
+        var delay = this.settings.stubLatency().plusNanos(random.nextLong(this.settings.stubJitter().toNanos() + 1));
+        if (random.nextDouble() < this.settings.stubErrorRate()) {
+            return body.then(Mono.delay(delay)).then(response.status(HttpResponseStatus.SERVICE_UNAVAILABLE).send());
+        }
+        return body.delayElement(delay)
+                .flatMap(value -> response.header(HttpHeaderNames.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .sendByteArray(Mono.just(this.write(value)))
+                        .then());
+    }
+
+    private Mono<CustomerInformation> customerInformation(HttpServerRequest request) {
+        var customerId = Integer.valueOf(request.param("customerId"));
+        var holdings = List.of(new Holding(Ticker.APPLE, 10), new Holding(Ticker.GOOGLE, 5));
+        return Mono.just(new CustomerInformation(customerId, "customer-" + customerId, 10_000, holdings));
+    }
+
+    private StockTradeResponse trade(HttpServerRequest request, byte[] body) {
+        var tradeRequest = this.read(body, StockTradeRequest.class);
+        var totalPrice = tradeRequest.price() * tradeRequest.quantity();
+        return new StockTradeResponse(Integer.valueOf(request.param("customerId")), tradeRequest.ticker(), tradeRequest.price(),
+                tradeRequest.quantity(), tradeRequest.action(), totalPrice, 10_000 - totalPrice);
+    }
+
+    private StockPriceResponse stockPrice(HttpServerRequest request) {
+        return new StockPriceResponse(Ticker.valueOf(request.param("ticker")), ThreadLocalRandom.current().nextInt(50, 150));
+    }
+
+    /**
+     * Streams server-sent events timestamped at emission, so subscribers of the aggregator can measure delivery latency.
+     */
+    private Mono<Void> priceStream(HttpServerResponse response) {
+        var tickers = Ticker.values();
+        var updates = Flux.interval(this.settings.priceInterval())
+                .onBackpressureDrop()
+                .map(tick -> {
+                    var random = ThreadLocalRandom.current();
+                    var update = new PriceUpdate(tickers[random.nextInt(tickers.length)], random.nextInt(50, 150), LocalDateTime.now());
+                    return "data:" + new String(this.write(update)) + "\n\n";
+                });
+        return response.header(HttpHeaderNames.CONTENT_TYPE, MediaType.TEXT_EVENT_STREAM_VALUE)
+                .sendString(updates)
+                .then();
+    }
+
+    private byte[] write(Object value) {
+        try {
+            return this.objectMapper.writeValueAsBytes(value);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private <T> T read(byte[] body, Class<T> type) {
+        try {
+            return this.objectMapper.readValue(body, type);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.TradeRequest;
+import org.HdrHistogram.Recorder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives `POST /customers/{customerId}/trade` with an open workload model.
+ *
+ * Requests are started at a fixed rate whether or not earlier ones have completed, and latency is measured from
+ * the time a request was scheduled to start. A slow aggregator therefore shows up as growing latency instead of
+ * a silently reduced request rate.
+ */
+final class TradeLoad {
+
+    private final WebClient client;
+    private final LoadTestSettings settings;
+    private final Recorder latencies = new Recorder(3);
+    private final LongAdder errors = new LongAdder();
+
+    TradeLoad(WebClient client, LoadTestSettings settings) {
+        this.client = client;
+        this.settings = settings;
+    }
+
+    Disposable start() {
+        var periodNanos = 1_000_000_000L / this.settings.tradeRate();
+        var start = System.nanoTime();
+        return Flux.interval(Duration.ofNanos(periodNanos))
+                .onBackpressureBuffer()
+                .flatMap(tick -> this.trade(start + (tick + 1) * periodNanos), Integer.MAX_VALUE)
+                .subscribe();
+    }
+
+    /**
+     * Starts a new measurement window, discarding everything recorded so far.
+     */
+    void reset() {
+        this.latencies.reset();
+        this.errors.reset();
+    }
+
+    ScenarioResult result(Duration window) {
+        return ScenarioResult.of("trade", this.latencies.getIntervalHistogram(), this.errors.sum(), window);
+    }
+
+    private Mono<Void> trade(long intendedStart) {
+        var random = ThreadLocalRandom.current();
+        var tickers = Ticker.values();
+        var customerId = random.nextInt(1, this.settings.customers() + 1);
+        var tradeRequest = new TradeRequest(tickers[random.nextInt(tickers.length)], random.nextBoolean() ? TradeAction.BUY : TradeAction.SELL, 1);
+        return this.client.post()
+                .uri("/customers/{customerId}/trade", customerId)
+                .bodyValue(tradeRequest)
+                .retrieve()
+                .toBodilessEntity()
+                .doOnError(ex -> this.errors.increment())
+                .onErrorResume(ex -> Mono.empty())
+                .doFinally(signal -> this.latencies.recordValue((System.nanoTime() - intendedStart) / 1000))
+                .then();
+    }
+}
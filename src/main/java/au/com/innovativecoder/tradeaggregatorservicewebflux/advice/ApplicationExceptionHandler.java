@@ -2,37 +2,45 @@ package au.com.innovativecoder.tradeaggregatorservicewebflux.advice;
 
 
 import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.CustomerNotFoundException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.DeadlineExceededException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.DownstreamUnavailableException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.InvalidRequestException;
 import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.InvalidTradeRequestException;
-import org.springframework.http.HttpStatus;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.OrderNotFoundException;
 import org.springframework.http.ProblemDetail;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
-import java.net.URI;
-import java.util.function.Consumer;
-
 @ControllerAdvice
 public class ApplicationExceptionHandler {
 
     @ExceptionHandler(CustomerNotFoundException.class)
     public ProblemDetail handleException(CustomerNotFoundException ex) {
-        return build(HttpStatus.NOT_FOUND, ex, problem -> {
-            problem.setType(URI.create("http://innovativecoder.com.au/problems/customer-not-found"));
-            problem.setTitle("Customer Not Found");
-        });
+        return ProblemDetails.customerNotFound(ex);
+    }
+
+    @ExceptionHandler(OrderNotFoundException.class)
+    public ProblemDetail handleException(OrderNotFoundException ex) {
+        return ProblemDetails.orderNotFound(ex);
     }
 
     @ExceptionHandler(InvalidTradeRequestException.class)
     public ProblemDetail handleException(InvalidTradeRequestException ex) {
-        return build(HttpStatus.BAD_REQUEST, ex, problem -> {
-            problem.setType(URI.create("http://innovativecoder.com.au/problems/invalid-trade-request"));
-            problem.setTitle("Invalid Trade Request");
-        });
+        return ProblemDetails.invalidTradeRequest(ex);
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    public ProblemDetail handleException(InvalidRequestException ex) {
+        return ProblemDetails.invalidRequest(ex);
+    }
+
+    @ExceptionHandler(DownstreamUnavailableException.class)
+    public ProblemDetail handleException(DownstreamUnavailableException ex) {
+        return ProblemDetails.downstreamUnavailable(ex);
     }
 
-    private ProblemDetail build(HttpStatus status, Exception ex, Consumer<ProblemDetail> consumer) {
-        var problem = ProblemDetail.forStatusAndDetail(status, ex.getMessage());
-        consumer.accept(problem);
-        return problem;
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ProblemDetail handleException(DeadlineExceededException ex) {
+        return ProblemDetails.deadlineExceeded(ex);
     }
 }
@@ -0,0 +1,97 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.advice;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.CustomerNotFoundException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.DeadlineExceededException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.DownstreamUnavailableException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.InvalidRequestException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.InvalidTradeRequestException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.OrderNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+
+import java.net.URI;
+import java.util.function.Consumer;
+
+public class ProblemDetails {
+
+    private static final Logger log = LoggerFactory.getLogger(ProblemDetails.class);
+
+    public static ProblemDetail customerNotFound(CustomerNotFoundException ex) {
+        return build(HttpStatus.NOT_FOUND, ex, problem -> {
+            problem.setType(URI.create("http://innovativecoder.com.au/problems/customer-not-found"));
+            problem.setTitle("Customer Not Found");
+        });
+    }
+
+    public static ProblemDetail orderNotFound(OrderNotFoundException ex) {
+        return build(HttpStatus.NOT_FOUND, ex, problem -> {
+            problem.setType(URI.create("http://innovativecoder.com.au/problems/order-not-found"));
+            problem.setTitle("Order Not Found");
+        });
+    }
+
+    public static ProblemDetail invalidTradeRequest(InvalidTradeRequestException ex) {
+        return build(HttpStatus.BAD_REQUEST, ex, problem -> {
+            problem.setType(URI.create("http://innovativecoder.com.au/problems/invalid-trade-request"));
+            problem.setTitle("Invalid Trade Request");
+        });
+    }
+
+    public static ProblemDetail invalidRequest(InvalidRequestException ex) {
+        return build(HttpStatus.BAD_REQUEST, ex, problem -> {
+            problem.setType(URI.create("http://innovativecoder.com.au/problems/invalid-request"));
+            problem.setTitle("Invalid Request");
+        });
+    }
+
+    public static ProblemDetail downstreamUnavailable(DownstreamUnavailableException ex) {
+        return build(HttpStatus.SERVICE_UNAVAILABLE, ex, problem -> {
+            problem.setType(URI.create("http://innovativecoder.com.au/problems/downstream-unavailable"));
+            problem.setTitle("Downstream Unavailable");
+        });
+    }
+
+    public static ProblemDetail deadlineExceeded(DeadlineExceededException ex) {
+        return build(HttpStatus.GATEWAY_TIMEOUT, ex, problem -> {
+            problem.setType(URI.create("http://innovativecoder.com.au/problems/deadline-exceeded"));
+            problem.setTitle("Deadline Exceeded");
+        });
+    }
+
+    public static ProblemDetail unexpected(Throwable ex) {
+        log.error("unexpected error of a streamed item", ex);
+        var problem = ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR, "The item could not be processed");
+        problem.setType(URI.create("http://innovativecoder.com.au/problems/unexpected-error"));
+        problem.setTitle("Unexpected Error");
+        return problem;
+    }
+
+    /**
+     * Builds the problem detail for an error of a single item in a streamed response,
+     * where the error cannot be reported through the response status.
+     *
+     * The message of an unexpected error is logged rather than returned, as it may describe internals.
+     *
+     * @param ex the error of the item
+     * @return the problem detail describing the error
+     */
+    public static ProblemDetail of(Throwable ex) {
+        return switch (ex) {
+            case CustomerNotFoundException e -> customerNotFound(e);
+            case OrderNotFoundException e -> orderNotFound(e);
+            case InvalidTradeRequestException e -> invalidTradeRequest(e);
+            case InvalidRequestException e -> invalidRequest(e);
+            case DownstreamUnavailableException e -> downstreamUnavailable(e);
+            case DeadlineExceededException e -> deadlineExceeded(e);
+            default -> unexpected(ex);
+        };
+    }
+
+    private static ProblemDetail build(HttpStatus status, Exception ex, Consumer<ProblemDetail> consumer) {
+        var problem = ProblemDetail.forStatusAndDetail(status, ex.getMessage());
+        consumer.accept(problem);
+        return problem;
+    }
+}
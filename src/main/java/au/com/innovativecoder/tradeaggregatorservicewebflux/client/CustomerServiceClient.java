@@ -4,6 +4,9 @@ import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.CustomerInformat
 import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeRequest;
 import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeResponse;
 import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.ApplicationExceptions;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.AdaptiveConcurrencyLimiter;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.RequestHedger;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ProblemDetail;
@@ -18,14 +21,25 @@ public class CustomerServiceClient {
     private static final Logger log = LoggerFactory.getLogger(CustomerServiceClient.class);
 
     private final WebClient client;
+    private final AdaptiveConcurrencyLimiter tradeLimiter;
+    private final RequestHedger customerInformationHedger;
+    private final DownstreamCallMetrics customerInformationMetrics;
+    private final DownstreamCallMetrics tradeMetrics;
 
     /**
      * Constructs a new CustomerServiceClient with the given WebClient.
      *
      * @param client the WebClient to use for making requests to the customer service
+     * @param tradeLimiter the limiter guarding the trade requests
+     * @param customerInformationHedger the hedger of the customer information requests
+     * @param meterRegistry the registry to publish the request timers to
      */
-    public CustomerServiceClient(WebClient client) {
+    public CustomerServiceClient(WebClient client, AdaptiveConcurrencyLimiter tradeLimiter, RequestHedger customerInformationHedger, MeterRegistry meterRegistry) {
         this.client = client;
+        this.tradeLimiter = tradeLimiter;
+        this.customerInformationHedger = customerInformationHedger;
+        this.customerInformationMetrics = new DownstreamCallMetrics(meterRegistry, "customer-service", "getCustomerInformation");
+        this.tradeMetrics = new DownstreamCallMetrics(meterRegistry, "customer-service", "trade");
     }
 
     /**
@@ -33,6 +47,7 @@ public class CustomerServiceClient {
      *
      * This method sends a GET request to the `/customers/{customerId}` endpoint,
      * expecting a response containing the customer information.
+     * A slow request may be hedged with a second one, each of them timed on its own.
      *
      * @param customerId the ID of the customer
      * @return a Mono of `CustomerInformation` containing the customer information
@@ -47,7 +62,9 @@ public class CustomerServiceClient {
                 // is encountered, indicating that the customer with the given ID was not found.
                 // @param ex the WebClientResponseException.NotFound exception
                 // @return a Mono error with a custom exception indicating the customer was not found
-                .onErrorResume(WebClientResponseException.NotFound.class, ex -> ApplicationExceptions.customerNotFound(customerId));
+                .onErrorResume(WebClientResponseException.NotFound.class, ex -> ApplicationExceptions.customerNotFound(customerId))
+                .transform(this.customerInformationMetrics::record)
+                .transform(this.customerInformationHedger::hedge);
     }
 
     /**
@@ -55,6 +72,7 @@ public class CustomerServiceClient {
      *
      * This method sends a POST request to the `/customers/{customerId}/trade` endpoint,
      * with the trade request as the request body, expecting a response containing the trade result.
+     * The request is rejected without reaching the customer service when the trade limiter sheds it.
      *
      * @param customerId the ID of the customer
      * @param stockTradeRequest the trade request details
@@ -77,7 +95,9 @@ public class CustomerServiceClient {
                 // is encountered, indicating that the request was invalid.
                 // @param exception the WebClientResponseException.BadRequest exception
                 // @return a Mono error with a custom exception indicating the request was invalid
-                .onErrorResume(WebClientResponseException.BadRequest.class, this::handleException);
+                .onErrorResume(WebClientResponseException.BadRequest.class, this::handleException)
+                .transform(this.tradeMetrics::record)
+                .transform(this.tradeLimiter::guard);
     }
 
     /**
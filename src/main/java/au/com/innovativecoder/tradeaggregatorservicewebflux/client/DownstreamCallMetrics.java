@@ -0,0 +1,75 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the calls of one operation of a downstream service.
+ *
+ * Calls are recorded in the `downstream.client.requests` timer, tagged with the downstream, the operation,
+ * the outcome and the simple name of the exception a failed call ended with. The timer publishes a percentile
+ * histogram, so latency percentiles can be aggregated across instances.
+ */
+public class DownstreamCallMetrics {
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final String downstream;
+    private final String operation;
+    private final Timer success;
+    private final Timer cancelled;
+    private final Map<Class<?>, Timer> failures = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new DownstreamCallMetrics.
+     *
+     * @param meterRegistry the registry to publish the timer to
+     * @param downstream the name of the downstream service
+     * @param operation the name of the timed operation
+     */
+    public DownstreamCallMetrics(MeterRegistry meterRegistry, String downstream, String operation) {
+        this.meterRegistry = meterRegistry;
+        this.downstream = downstream;
+        this.operation = operation;
+        this.success = this.timer("success", NONE);
+        this.cancelled = this.timer("cancelled", NONE);
+    }
+
+    /**
+     * Times the given downstream call from subscription to termination.
+     *
+     * @param call the downstream call
+     * @param <T> the type of the call result
+     * @return a Mono of the call result
+     */
+    public <T> Mono<T> record(Mono<T> call) {
+        return Mono.defer(() -> {
+            var start = System.nanoTime();
+            return call
+                    .doOnSuccess(result -> this.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(ex -> this.failure(ex).record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnCancel(() -> this.cancelled.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private Timer failure(Throwable ex) {
+        return this.failures.computeIfAbsent(ex.getClass(), type -> this.timer("failure", type.getSimpleName()));
+    }
+
+    private Timer timer(String outcome, String exception) {
+        return Timer.builder("downstream.client.requests")
+                .description("Latency of calls to downstream services")
+                .tag("downstream", this.downstream)
+                .tag("operation", this.operation)
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .register(this.meterRegistry);
+    }
+}
@@ -0,0 +1,388 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.client;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Decodes the server-sent events of the upstream price stream into `PriceUpdate`s straight from the received
+ * buffers.
+ *
+ * The received bytes are copied into a reusable line buffer and the `data` lines of each event into a reusable
+ * payload buffer, so events split across buffers are completed by the next one. The payload is parsed in place:
+ * the ticker is matched against the constant names as bytes and the time is read digit by digit, so a tick only
+ * allocates the `PriceUpdate` with its price and time. Other fields are skipped, and so are the other event fields.
+ *
+ * A payload the fast path does not handle, such as one with escaped strings or another time format, is decoded
+ * with Jackson instead. An instance holds the state of one stream and is not thread-safe.
+ *
+ * Like the `maxInMemorySize` of the WebFlux codecs, an event is limited to 256KB by default, counting its buffered
+ * payload and its incomplete line. A larger event fails the stream with a `DataBufferLimitException` instead of
+ * growing the buffers without bound.
+ */
+public final class PriceUpdateDecoder {
+
+    public static final int DEFAULT_MAX_EVENT_SIZE = 256 * 1024;
+
+    private static final ObjectMapper FALLBACK = Jackson2ObjectMapperBuilder.json().build();
+    private static final Ticker[] TICKERS = Ticker.values();
+    private static final byte[][] TICKER_NAMES = Stream.of(TICKERS).map(ticker -> ascii(ticker.name())).toArray(byte[][]::new);
+    private static final byte[] DATA = ascii("data");
+    private static final byte[] TICKER = ascii("ticker");
+    private static final byte[] PRICE = ascii("price");
+    private static final byte[] TIME = ascii("time");
+    private static final byte[] NULL = ascii("null");
+    private static final int[] NANO_SCALE = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000};
+
+    private final int maxEventSize;
+    private byte[] lines = new byte[4096];
+    private int linesLength;
+    private int scanned;
+    private byte[] data = new byte[256];
+    private int dataLength;
+    private boolean hasData;
+    private int pos;
+
+    public PriceUpdateDecoder() {
+        this(DEFAULT_MAX_EVENT_SIZE);
+    }
+
+    /**
+     * Constructs a new PriceUpdateDecoder.
+     *
+     * @param maxEventSize the maximum number of bytes of an event that may be buffered
+     */
+    public PriceUpdateDecoder(int maxEventSize) {
+        this.maxEventSize = maxEventSize;
+    }
+
+    /**
+     * Decodes the given stream of raw event stream buffers, releasing every buffer once it has been read.
+     *
+     * @param buffers the body of the upstream event stream
+     * @return a Flux of the decoded `PriceUpdate` objects
+     */
+    public static Flux<PriceUpdate> decode(Flux<DataBuffer> buffers) {
+        return Flux.defer(() -> {
+            var decoder = new PriceUpdateDecoder();
+            return buffers.concatMapIterable(decoder::decode);
+        });
+    }
+
+    /**
+     * Decodes the complete events ending in the given buffer, and keeps a trailing partial event for the next one.
+     *
+     * @param buffer the next buffer of the stream, released by this method
+     * @return the price updates of the completed events
+     * @throws DataBufferLimitException when an event exceeds the maximum event size
+     */
+    public List<PriceUpdate> decode(DataBuffer buffer) {
+        try {
+            var length = buffer.readableByteCount();
+            if (this.linesLength + length > this.lines.length) {
+                this.lines = Arrays.copyOf(this.lines, Math.max(this.lines.length * 2, this.linesLength + length));
+            }
+            buffer.read(this.lines, this.linesLength, length);
+            this.linesLength += length;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+        List<PriceUpdate> updates = List.of();
+        var lineStart = 0;
+        for (var i = this.scanned; i < this.linesLength; i++) {
+            if (this.lines[i] != '\n') {
+                continue;
+            }
+            var lineEnd = i > lineStart && this.lines[i - 1] == '\r' ? i - 1 : i;
+            if (lineEnd == lineStart) {
+                if (this.hasData) {
+                    if (updates.isEmpty()) {
+                        updates = new ArrayList<>();
+                    }
+                    updates.add(this.parse());
+                }
+                this.dataLength = 0;
+                this.hasData = false;
+            } else {
+                this.field(lineStart, lineEnd);
+            }
+            lineStart = i + 1;
+        }
+        System.arraycopy(this.lines, lineStart, this.lines, 0, this.linesLength - lineStart);
+        this.linesLength -= lineStart;
+        this.scanned = this.linesLength;
+        this.checkEventSize(this.dataLength + this.linesLength);
+        return updates;
+    }
+
+    private void field(int start, int end) {
+        var colon = start;
+        while (colon < end && this.lines[colon] != ':') {
+            colon++;
+        }
+        if (!Arrays.equals(this.lines, start, colon, DATA, 0, DATA.length)) {
+            return;
+        }
+        var valueStart = Math.min(end, colon + 1);
+        if (valueStart < end && this.lines[valueStart] == ' ') {
+            valueStart++;
+        }
+        var length = end - valueStart + (this.hasData ? 1 : 0);
+        this.checkEventSize(this.dataLength + length);
+        if (this.dataLength + length > this.data.length) {
+            this.data = Arrays.copyOf(this.data, Math.max(this.data.length * 2, this.dataLength + length));
+        }
+        if (this.hasData) {
+            this.data[this.dataLength++] = '\n';
+        }
+        System.arraycopy(this.lines, valueStart, this.data, this.dataLength, end - valueStart);
+        this.dataLength += end - valueStart;
+        this.hasData = true;
+    }
+
+    private void checkEventSize(int size) {
+        if (size > this.maxEventSize) {
+            throw new DataBufferLimitException("Exceeded limit on max bytes per price event : " + this.maxEventSize);
+        }
+    }
+
+    private PriceUpdate parse() {
+        this.pos = 0;
+        var update = this.parseFast();
+        if (update != null) {
+            return update;
+        }
+        try {
+            return FALLBACK.readValue(this.data, 0, this.dataLength, PriceUpdate.class);
+        } catch (IOException ex) {
+            throw new DecodingException("price update decoding error : " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Parses the payload as a flat JSON object, or returns null when it needs the general-purpose parser.
+     */
+    private PriceUpdate parseFast() {
+        if (!this.expect('{')) {
+            return null;
+        }
+        Ticker ticker = null;
+        Integer price = null;
+        LocalDateTime time = null;
+        if (!this.expect('}')) {
+            do {
+                if (!this.expect('"')) {
+                    return null;
+                }
+                var keyStart = this.pos;
+                var keyEnd = this.stringEnd();
+                if (keyEnd < 0 || !this.expect(':')) {
+                    return null;
+                }
+                this.skipWhitespace();
+                var isNull = this.literal(NULL);
+                if (this.is(keyStart, keyEnd, TICKER)) {
+                    if (!isNull) {
+                        if (!this.expect('"')) {
+                            return null;
+                        }
+                        var start = this.pos;
+                        var end = this.stringEnd();
+                        if (end < 0 || (ticker = this.ticker(start, end)) == null) {
+                            return null;
+                        }
+                    }
+                } else if (this.is(keyStart, keyEnd, PRICE)) {
+                    if (!isNull && (price = this.integer()) == null) {
+                        return null;
+                    }
+                } else if (this.is(keyStart, keyEnd, TIME)) {
+                    if (!isNull) {
+                        if (!this.expect('"')) {
+                            return null;
+                        }
+                        var start = this.pos;
+                        var end = this.stringEnd();
+                        if (end < 0 || (time = this.time(start, end)) == null) {
+                            return null;
+                        }
+                    }
+                } else if (!isNull && !this.skipValue()) {
+                    return null;
+                }
+            } while (this.expect(','));
+            if (!this.expect('}')) {
+                return null;
+            }
+        }
+        this.skipWhitespace();
+        return this.pos == this.dataLength ? new PriceUpdate(ticker, price, time) : null;
+    }
+
+    private void skipWhitespace() {
+        while (this.pos < this.dataLength && (this.data[this.pos] == ' ' || this.data[this.pos] == '\t' || this.data[this.pos] == '\n' || this.data[this.pos] == '\r')) {
+            this.pos++;
+        }
+    }
+
+    private boolean expect(char c) {
+        this.skipWhitespace();
+        if (this.pos < this.dataLength && this.data[this.pos] == c) {
+            this.pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean literal(byte[] literal) {
+        if (Arrays.equals(this.data, this.pos, Math.min(this.dataLength, this.pos + literal.length), literal, 0, literal.length)) {
+            this.pos += literal.length;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean is(int start, int end, byte[] name) {
+        return Arrays.equals(this.data, start, end, name, 0, name.length);
+    }
+
+    /**
+     * Moves past the closing quote of a string without escapes, returning the end of its content or -1.
+     */
+    private int stringEnd() {
+        while (this.pos < this.dataLength) {
+            var c = this.data[this.pos++];
+            if (c == '"') {
+                return this.pos - 1;
+            }
+            if (c == '\\') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private Ticker ticker(int start, int end) {
+        for (var i = 0; i < TICKER_NAMES.length; i++) {
+            if (Arrays.equals(this.data, start, end, TICKER_NAMES[i], 0, TICKER_NAMES[i].length)) {
+                return TICKERS[i];
+            }
+        }
+        return null;
+    }
+
+    private Integer integer() {
+        var negative = this.pos < this.dataLength && this.data[this.pos] == '-';
+        if (negative) {
+            this.pos++;
+        }
+        var start = this.pos;
+        var value = 0L;
+        while (this.pos < this.dataLength && this.data[this.pos] >= '0' && this.data[this.pos] <= '9') {
+            value = value * 10 + (this.data[this.pos++] - '0');
+            if (value > Integer.MAX_VALUE + 1L) {
+                return null;
+            }
+        }
+        if (this.pos == start || (this.pos < this.dataLength && (this.data[this.pos] == '.' || this.data[this.pos] == 'e' || this.data[this.pos] == 'E'))) {
+            return null;
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE ? null : (int) value;
+    }
+
+    /**
+     * Parses `yyyy-MM-ddTHH:mm[:ss[.fraction]]`, or returns null for anything else.
+     */
+    private LocalDateTime time(int start, int end) {
+        var length = end - start;
+        if (length < 16 || this.data[start + 4] != '-' || this.data[start + 7] != '-' || this.data[start + 10] != 'T' || this.data[start + 13] != ':') {
+            return null;
+        }
+        var second = 0;
+        var nano = 0;
+        if (length > 16) {
+            if (length < 19 || this.data[start + 16] != ':') {
+                return null;
+            }
+            second = this.digits(start + 17, 2);
+            if (length > 19) {
+                var fraction = length - 20;
+                if (this.data[start + 19] != '.' || fraction < 1 || fraction > 9) {
+                    return null;
+                }
+                nano = this.digits(start + 20, fraction);
+                nano = nano < 0 ? -1 : nano * NANO_SCALE[9 - fraction];
+            }
+        }
+        var year = this.digits(start, 4);
+        var month = this.digits(start + 5, 2);
+        var day = this.digits(start + 8, 2);
+        var hour = this.digits(start + 11, 2);
+        var minute = this.digits(start + 14, 2);
+        if ((year | month | day | hour | minute | second | nano) < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        } catch (DateTimeException ex) {
+            return null;
+        }
+    }
+
+    private int digits(int start, int count) {
+        var value = 0;
+        for (var i = start; i < start + count; i++) {
+            var c = this.data[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Moves to the delimiter after any JSON value, returning false when the payload ends first.
+     */
+    private boolean skipValue() {
+        var depth = 0;
+        while (this.pos < this.dataLength) {
+            var c = this.data[this.pos];
+            if (depth == 0 && (c == ',' || c == '}' || c == ']')) {
+                return true;
+            }
+            this.pos++;
+            if (c == '"') {
+                while (this.pos < this.dataLength && this.data[this.pos] != '"') {
+                    this.pos += this.data[this.pos] == '\\' ? 2 : 1;
+                }
+                this.pos++;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
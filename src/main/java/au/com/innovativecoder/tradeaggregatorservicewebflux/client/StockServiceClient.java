@@ -3,31 +3,38 @@ package au.com.innovativecoder.tradeaggregatorservicewebflux.client;
 import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
 import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
 import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockPriceResponse;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.AdaptiveConcurrencyLimiter;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.RequestHedger;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.retry.Retry;
-
-import java.time.Duration;
-import java.util.Objects;
 
 public class StockServiceClient {
 
-    private static final Logger log = LoggerFactory.getLogger(StockServiceClient.class);
-
     private final WebClient client;
-    private Flux<PriceUpdate> flux;
+    private final WebClient streamClient;
+    private final AdaptiveConcurrencyLimiter priceLimiter;
+    private final RequestHedger priceHedger;
+    private final DownstreamCallMetrics stockPriceMetrics;
 
     /**
-     * Constructs a new StockServiceClient with the given WebClient.
+     * Constructs a new StockServiceClient with the given WebClients.
      *
      * @param client the WebClient to use for making requests to the stock service
+     * @param streamClient the WebClient to use for the long-lived price stream
+     * @param priceLimiter the limiter guarding the stock price requests
+     * @param priceHedger the hedger of the stock price requests
+     * @param meterRegistry the registry to publish the request timer to
      */
-    public StockServiceClient(WebClient client) {
+    public StockServiceClient(WebClient client, WebClient streamClient, AdaptiveConcurrencyLimiter priceLimiter, RequestHedger priceHedger, MeterRegistry meterRegistry) {
         this.client = client;
+        this.streamClient = streamClient;
+        this.priceLimiter = priceLimiter;
+        this.priceHedger = priceHedger;
+        this.stockPriceMetrics = new DownstreamCallMetrics(meterRegistry, "stock-service", "getStockPrice");
     }
 
     /**
@@ -35,6 +42,8 @@ public class StockServiceClient {
      *
      * This method sends a GET request to the `/stock/{ticker}` endpoint,
      * expecting a response containing the stock price information.
+     * The request is rejected without reaching the stock service when the price limiter sheds it. A slow request
+     * may be hedged with a second one, each of them timed and limited on its own.
      *
      * @param ticker the ticker symbol of the stock
      * @return a Mono of `StockPriceResponse` containing the stock price information
@@ -43,55 +52,28 @@ public class StockServiceClient {
         return this.client.get()
                 .uri("/stock/{ticker}", ticker)
                 .retrieve()
-                .bodyToMono(StockPriceResponse.class);
-    }
-
-    /**
-     * Retrieves a stream of price updates from the stock service.
-     *
-     * This method checks if the flux is null and initializes it by calling
-     * `getPriceUpdates()` if necessary. It returns the cached flux of price updates.
-     *
-     * @return a Flux of `PriceUpdate` objects representing the price updates
-     */
-    public Flux<PriceUpdate> priceUpdatesStream() {
-        if(Objects.isNull(this.flux)) {
-            this.flux = this.getPriceUpdates();
-        }
-        return this.flux;
+                .bodyToMono(StockPriceResponse.class)
+                .transform(this.stockPriceMetrics::record)
+                .transform(this.priceLimiter::guard)
+                .transform(this.priceHedger::hedge);
     }
 
     /**
-     * Retrieves a stream of price updates from the stock service.
+     * Opens a stream of price updates from the stock service.
      *
      * This method sends a GET request to the `/stock/price-stream` endpoint,
-     * expecting a stream of price updates in NDJSON format. The response is
-     * converted to a Flux of `PriceUpdate` objects, retried on failure, and cached with a size of 1.
-     * It is cached to make it a hot publisher so that it does not need to have multiple instantiations of stock service
-     * Retry is implemented because if the stock service is restarted , then it should not throw errors from this service.
+     * expecting a stream of server-sent events. Every subscription opens a new connection,
+     * so the stream is meant to be consumed by `PriceIngestionEngine` only, which owns the single connection
+     * and reconnects when it fails. Events are decoded from the raw buffers by a `PriceUpdateDecoder`.
      *
      * @return a Flux of `PriceUpdate` objects representing the price updates
      */
-    private Flux<PriceUpdate> getPriceUpdates() {
-        return this.client.get()
+    public Flux<PriceUpdate> priceUpdates() {
+        return this.streamClient.get()
                 .uri("/stock/price-stream")
                 .accept(MediaType.TEXT_EVENT_STREAM)
                 .retrieve()
-                .bodyToFlux(PriceUpdate.class)
-                .retryWhen(retry())
-                .cache(1);
-    }
-
-    /**
-     * Configures the retry mechanism for the price updates stream.
-     *
-     * This method sets up a fixed delay retry strategy with a maximum of 100 retries,
-     * each delayed by 1 second. It logs an error message before each retry attempt.
-     *
-     * @return a Retry object configured with the retry strategy
-     */
-    private Retry retry() {
-        return Retry.fixedDelay(100, Duration.ofSeconds(1))
-                .doBeforeRetry(rs -> log.error("stock service price stream failed. retrying {}", rs.failure().getMessage()));
+                .bodyToFlux(DataBuffer.class)
+                .transform(PriceUpdateDecoder::decode);
     }
 }
@@ -0,0 +1,74 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.CodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+
+/**
+ * Registers the `application/cbor` and `application/x-jackson-smile` codecs beside JSON.
+ *
+ * The binary object mappers are built with the same settings as the application JSON mapper. Custom writers are
+ * consulted before the default ones, so the JSON encoder is registered again ahead of CBOR: a request without a
+ * preference, or a browser accepting anything, is still answered with JSON, and request bodies sent by the
+ * WebClients stay JSON. Applied to the server codecs by Spring Boot and to the downstream WebClients by
+ * {@link ServiceClientsConfig}.
+ */
+@Component
+public class BinaryCodecs implements CodecCustomizer {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final ObjectMapper smileMapper;
+
+    public BinaryCodecs(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.jsonMapper = objectMapper;
+        this.cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        this.smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+    }
+
+    @Override
+    public void customize(CodecConfigurer configurer) {
+        configurer.customCodecs().registerWithDefaultConfig(new Jackson2JsonEncoder(this.jsonMapper));
+        configurer.customCodecs().registerWithDefaultConfig(new CborEncoder(this.cborMapper));
+        configurer.customCodecs().registerWithDefaultConfig(new Jackson2CborDecoder(this.cborMapper, MediaType.APPLICATION_CBOR));
+        configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(this.smileMapper, APPLICATION_SMILE));
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(this.smileMapper, APPLICATION_SMILE));
+    }
+
+    /**
+     * `Jackson2CborEncoder` only encodes single values, but response bodies reach encoders as a stream even when
+     * there is a single value. Each value is encoded as a complete CBOR data item.
+     */
+    private static final class CborEncoder extends Jackson2CborEncoder {
+
+        private CborEncoder(ObjectMapper objectMapper) {
+            super(objectMapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            return Flux.from(inputStream)
+                    .map(value -> this.encodeValue(value, bufferFactory, elementType, mimeType, hints));
+        }
+    }
+}
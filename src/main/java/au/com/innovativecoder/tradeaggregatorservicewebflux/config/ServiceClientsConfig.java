@@ -2,34 +2,168 @@ package au.com.innovativecoder.tradeaggregatorservicewebflux.config;
 
 import au.com.innovativecoder.tradeaggregatorservicewebflux.client.CustomerServiceClient;
 import au.com.innovativecoder.tradeaggregatorservicewebflux.client.StockServiceClient;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.AdaptiveConcurrencyLimiter;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.HedgeProperties;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.LimiterProperties;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.RequestDeadlines;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.RequestHedger;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.util.CollectionUtils;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class ServiceClientsConfig {
 
     private static final Logger log = LoggerFactory.getLogger(ServiceClientsConfig.class);
 
+    private final BinaryCodecs binaryCodecs;
+    private final RequestDeadlines requestDeadlines;
+
+    public ServiceClientsConfig(BinaryCodecs binaryCodecs, RequestDeadlines requestDeadlines) {
+        this.binaryCodecs = binaryCodecs;
+        this.requestDeadlines = requestDeadlines;
+    }
+
     @Bean
-    public CustomerServiceClient customerServiceClient(@Value("${customer.service.url}") String baseUrl) {
-        return new CustomerServiceClient(this.createWebClient("Customer Service", baseUrl));
+    @ConfigurationProperties("customer.service.http")
+    public HttpClientProperties customerServiceHttpClientProperties() {
+        var properties = new HttpClientProperties();
+        properties.setResponseTimeout(Duration.ofSeconds(5));
+        return properties;
     }
 
     @Bean
-    public StockServiceClient stockServiceClient(@Value("${stock.service.url}") String baseUrl) {
-        return new StockServiceClient(this.createWebClient("Stock Service",baseUrl));
+    @ConfigurationProperties("stock.service.http")
+    public HttpClientProperties stockServiceHttpClientProperties() {
+        var properties = new HttpClientProperties();
+        properties.setResponseTimeout(Duration.ofSeconds(2));
+        return properties;
     }
 
-    private WebClient createWebClient(String type, String baseUrl) {
-        log.info("{} baseUrl : {}", type, baseUrl);
-        return WebClient.builder()
-                .baseUrl(baseUrl)
-                .build();
+    /**
+     * The price stream is a single long-lived response, so it gets its own small pool without read or
+     * response timeouts instead of sharing the pool of the short stock price requests.
+     */
+    @Bean
+    @ConfigurationProperties("stock.service.stream")
+    public HttpClientProperties stockServiceStreamHttpClientProperties() {
+        var properties = new HttpClientProperties();
+        properties.setMaxConnections(2);
+        properties.setPendingAcquireMaxCount(2);
+        return properties;
+    }
+
+    @Bean
+    @ConfigurationProperties("customer.service.limiter")
+    public LimiterProperties customerServiceLimiterProperties() {
+        return new LimiterProperties();
     }
 
+    @Bean
+    @ConfigurationProperties("stock.service.limiter")
+    public LimiterProperties stockServiceLimiterProperties() {
+        return new LimiterProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("customer.service.hedge")
+    public HedgeProperties customerServiceHedgeProperties() {
+        return new HedgeProperties();
+    }
 
+    @Bean
+    @ConfigurationProperties("stock.service.hedge")
+    public HedgeProperties stockServiceHedgeProperties() {
+        return new HedgeProperties();
+    }
+
+    @Bean
+    public CustomerServiceClient customerServiceClient(@Value("${customer.service.url}") String baseUrl, MeterRegistry meterRegistry) {
+        return new CustomerServiceClient(
+                this.createWebClient("customer-service", baseUrl, this.customerServiceHttpClientProperties()),
+                new AdaptiveConcurrencyLimiter("customer-service", this.customerServiceLimiterProperties(), meterRegistry),
+                new RequestHedger("customer-service", this.customerServiceHedgeProperties(), meterRegistry),
+                meterRegistry
+        );
+    }
+
+    @Bean
+    public StockServiceClient stockServiceClient(@Value("${stock.service.url}") String baseUrl, MeterRegistry meterRegistry) {
+        return new StockServiceClient(
+                this.createWebClient("stock-service", baseUrl, this.stockServiceHttpClientProperties()),
+                this.createWebClient("stock-service-stream", baseUrl, this.stockServiceStreamHttpClientProperties()),
+                new AdaptiveConcurrencyLimiter("stock-service", this.stockServiceLimiterProperties(), meterRegistry),
+                new RequestHedger("stock-service", this.stockServiceHedgeProperties(), meterRegistry),
+                meterRegistry
+        );
+    }
+
+    /**
+     * Creates a WebClient that can read CBOR and Smile as well as JSON.
+     *
+     * When accepted media types are configured they are sent as the default `Accept` header, so a downstream
+     * service that supports a binary encoding can answer with it. Request bodies are always sent as JSON.
+     * Calls made within a pipeline bounded by a deadline get the remaining budget only, see `RequestDeadlines`.
+     */
+    private WebClient createWebClient(String name, String baseUrl, HttpClientProperties properties) {
+        log.info("{} baseUrl : {}", name, baseUrl);
+        var builder = WebClient.builder()
+                .baseUrl(baseUrl)
+                .codecs(this.binaryCodecs::customize)
+                .filter(this.requestDeadlines.propagate(name))
+                .clientConnector(new ReactorClientHttpConnector(this.createHttpClient(name, properties)));
+        if (!CollectionUtils.isEmpty(properties.getAccept())) {
+            log.info("{} accept : {}", name, properties.getAccept());
+            builder.defaultHeaders(headers -> headers.setAccept(properties.getAccept()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates an HTTP client with a dedicated, named connection pool.
+     *
+     * Requests beyond the pending acquire limit fail fast instead of queueing without bound. Pool metrics are
+     * published under `reactor.netty.connection.provider` tagged with the pool name.
+     */
+    private HttpClient createHttpClient(String name, HttpClientProperties properties) {
+        var provider = ConnectionProvider.builder(name)
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .evictInBackground(properties.getEvictInBackground())
+                .metrics(properties.isMetrics());
+        if (Objects.nonNull(properties.getMaxLifeTime())) {
+            provider.maxLifeTime(properties.getMaxLifeTime());
+        }
+        var httpClient = HttpClient.create(provider.build())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis());
+        if (Objects.nonNull(properties.getResponseTimeout())) {
+            httpClient = httpClient.responseTimeout(properties.getResponseTimeout());
+        }
+        if (Objects.nonNull(properties.getReadTimeout())) {
+            var readTimeoutMillis = properties.getReadTimeout().toMillis();
+            httpClient = httpClient.doOnRequest((request, connection) -> connection.addHandlerLast(new ReadTimeoutHandler(readTimeoutMillis, TimeUnit.MILLISECONDS)));
+        }
+        if (properties.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        return httpClient;
+    }
 }
@@ -0,0 +1,21 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.config;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.controller.PriceFeedWebSocketHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+
+import java.util.Map;
+
+@Configuration
+public class WebSocketConfig {
+
+    /**
+     * Maps the WebSocket price feed ahead of the annotated controllers.
+     */
+    @Bean
+    public HandlerMapping priceFeedWebSocketMapping(PriceFeedWebSocketHandler priceFeedWebSocketHandler) {
+        return new SimpleUrlHandlerMapping(Map.of("/stock/price-ws", priceFeedWebSocketHandler), -1);
+    }
+}
@@ -0,0 +1,41 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.controller;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.OrderRequest;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.RestingOrder;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.service.OrderEngine;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.validator.RequestValidator;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("customers")
+public class CustomerOrderController {
+
+    private final OrderEngine orderEngine;
+
+    public CustomerOrderController(OrderEngine orderEngine) {
+        this.orderEngine = orderEngine;
+    }
+
+    @PostMapping("/{customerId}/orders")
+    public Mono<RestingOrder> placeOrder(@PathVariable("customerId") Integer customerId, @RequestBody Mono<OrderRequest> orderRequestMono) {
+        return orderRequestMono.transform(RequestValidator.validateOrder())
+                .flatMap(req -> this.orderEngine.place(customerId, req));
+    }
+
+    @GetMapping("/{customerId}/orders")
+    public Flux<RestingOrder> orders(@PathVariable("customerId") Integer customerId) {
+        return this.orderEngine.orders(customerId);
+    }
+
+    @GetMapping("/{customerId}/orders/{orderId}")
+    public Mono<RestingOrder> order(@PathVariable("customerId") Integer customerId, @PathVariable("orderId") Long orderId) {
+        return this.orderEngine.order(customerId, orderId);
+    }
+
+    @DeleteMapping("/{customerId}/orders/{orderId}")
+    public Mono<RestingOrder> cancelOrder(@PathVariable("customerId") Integer customerId, @PathVariable("orderId") Long orderId) {
+        return this.orderEngine.cancel(customerId, orderId);
+    }
+}
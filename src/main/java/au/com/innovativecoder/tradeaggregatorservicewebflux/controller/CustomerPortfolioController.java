@@ -1,26 +1,49 @@
 package au.com.innovativecoder.tradeaggregatorservicewebflux.controller;
 
+import au.com.innovativecoder.tradeaggregatorservicewebflux.advice.ProblemDetails;
 import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.CustomerInformation;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.JournaledTrade;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PortfolioValuation;
 import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeRequest;
 import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeResponse;
 import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.TradeRequest;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.ApplicationExceptions;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.Deadline;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.RequestDeadlines;
 import au.com.innovativecoder.tradeaggregatorservicewebflux.service.CustomerPortfolioService;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.service.PortfolioValuationService;
 import au.com.innovativecoder.tradeaggregatorservicewebflux.validator.RequestValidator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
 @RestController
 @RequestMapping("customers")
 public class CustomerPortfolioController {
 
     private static final Logger log = LoggerFactory.getLogger(CustomerPortfolioController.class);
+    private static final int MAX_TRADE_MINUTES = 7 * 24 * 60;
 
     private final CustomerPortfolioService customerPortfolioService;
+    private final PortfolioValuationService portfolioValuationService;
+    private final RequestDeadlines requestDeadlines;
+    private final ObjectMapper objectMapper;
 
-    public CustomerPortfolioController(CustomerPortfolioService customerPortfolioService) {
+    public CustomerPortfolioController(CustomerPortfolioService customerPortfolioService, PortfolioValuationService portfolioValuationService,
+                                       RequestDeadlines requestDeadlines, ObjectMapper objectMapper) {
         this.customerPortfolioService = customerPortfolioService;
+        this.portfolioValuationService = portfolioValuationService;
+        this.requestDeadlines = requestDeadlines;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/{customerId}")
@@ -28,9 +51,61 @@ public class CustomerPortfolioController {
         return customerPortfolioService.getCustomerInformation(customerId);
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<?> getCustomerInformation(@RequestParam("ids") List<Integer> customerIds) {
+        return this.getCustomerInformation(Flux.fromIterable(customerIds));
+    }
+
+    @PostMapping(value = "/lookup", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<?> lookupCustomerInformation(@RequestBody Flux<Integer> customerIds) {
+        return this.getCustomerInformation(customerIds);
+    }
+
+    @GetMapping(value = "/{customerId}/portfolio/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<PortfolioValuation> portfolioValuationStream(@PathVariable("customerId") Integer customerId) {
+        return this.portfolioValuationService.valuationStream(customerId);
+    }
+
     @PostMapping("/{customerId}/trade")
-    public Mono<StockTradeResponse> trade(@PathVariable("customerId") Integer customerId, @RequestBody Mono<TradeRequest> tradeRequestMono) {
+    public Mono<StockTradeResponse> trade(@PathVariable("customerId") Integer customerId, @RequestBody Mono<TradeRequest> tradeRequestMono,
+                                          @RequestHeader(name = Deadline.HEADER, required = false) String timeout,
+                                          @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
         return tradeRequestMono.transform(RequestValidator.validate())
-                .flatMap(req -> this.customerPortfolioService.trade(customerId, req));
+                .flatMap(req -> this.customerPortfolioService.trade(customerId, req, idempotencyKey))
+                .transform(this.requestDeadlines.bound(timeout));
+    }
+
+    @PostMapping(value = "/{customerId}/trades", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<?> trades(@PathVariable("customerId") Integer customerId, @RequestBody Flux<String> tradeRequests) {
+        var batchTrade = this.customerPortfolioService.batchTrade(customerId);
+        // Lines are read one at a time, so a malformed line is reported as a problem item instead of failing the batch:
+        return tradeRequests.filter(line -> !line.isBlank())
+                .concatMap(line -> this.parseTradeRequest(line)
+                        .transform(RequestValidator.validate())
+                        .flatMap(batchTrade)
+                        .cast(Object.class)
+                        .onErrorResume(ex -> Mono.just(ProblemDetails.of(ex))));
+    }
+
+    @GetMapping(value = "/{customerId}/trades", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<JournaledTrade> recentTrades(@PathVariable("customerId") Integer customerId,
+                                             @RequestParam(name = "minutes", defaultValue = "60") int minutes) {
+        if (minutes < 1 || minutes > MAX_TRADE_MINUTES) {
+            return ApplicationExceptions.<JournaledTrade>invalidWindow(MAX_TRADE_MINUTES).flux();
+        }
+        return this.customerPortfolioService.recentTrades(customerId, Duration.ofMinutes(minutes));
+    }
+
+    private Mono<TradeRequest> parseTradeRequest(String line) {
+        return Mono.fromCallable(() -> this.objectMapper.readValue(line, TradeRequest.class))
+                .onErrorResume(JsonProcessingException.class, ex -> ApplicationExceptions.malformedTradeRequest());
+    }
+
+    private Flux<?> getCustomerInformation(Flux<Integer> customerIds) {
+        return this.customerPortfolioService.getCustomerInformation(customerIds, (customerId, ex) -> {
+            var problem = ProblemDetails.of(ex);
+            problem.setInstance(URI.create("/customers/" + customerId));
+            return problem;
+        });
     }
 }
@@ -0,0 +1,139 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.controller;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceFeedCommand;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceDeltaEncoder;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceStreamBroadcaster;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams prices over a WebSocket as compact binary frames encoded by {@link PriceDeltaEncoder}.
+ *
+ * Clients send JSON text messages such as `{"action":"SUBSCRIBE","tickers":["APPLE"]}` to change their
+ * subscription at any time. Every subscribe is answered with a keyframe, and a keyframe is sent periodically
+ * so that clients can resync. A malformed command closes the connection.
+ */
+@Component
+public class PriceFeedWebSocketHandler implements WebSocketHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceFeedWebSocketHandler.class);
+
+    private static final Object KEYFRAME = new Object();
+
+    private final PriceStreamBroadcaster priceStreamBroadcaster;
+    private final ObjectMapper objectMapper;
+    private final Duration keyframeInterval;
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final DistributionSummary frameSize;
+
+    /**
+     * Constructs a new PriceFeedWebSocketHandler.
+     *
+     * @param priceStreamBroadcaster the broadcaster providing the shared per-ticker price streams
+     * @param objectMapper the application object mapper, used to read client commands
+     * @param keyframeInterval the interval between periodic keyframes
+     * @param meterRegistry the registry to publish the session and frame size metrics to
+     */
+    public PriceFeedWebSocketHandler(PriceStreamBroadcaster priceStreamBroadcaster,
+                                     ObjectMapper objectMapper,
+                                     @Value("${price.ws.keyframe-interval:5s}") Duration keyframeInterval,
+                                     MeterRegistry meterRegistry) {
+        this.priceStreamBroadcaster = priceStreamBroadcaster;
+        this.objectMapper = objectMapper;
+        this.keyframeInterval = keyframeInterval;
+        this.frameSize = DistributionSummary.builder("price.ws.frame.size")
+                .description("Size of the binary price frames sent over WebSocket")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("price.ws.sessions", this.sessions, AtomicInteger::get)
+                .description("Open WebSocket price feed sessions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Handles one connection.
+     *
+     * Commands, price updates and keyframe ticks are merged into a single sequence before they reach the
+     * connection's encoder, so the encoder is only ever used by one thread at a time. Commands are decoded after
+     * the merge, because a failure there would otherwise cancel the inbound side and end the stream as a normal
+     * close before the error could be reported. Price updates of tickers the client is not subscribed to are
+     * dropped right after the merge; a subscribe seeds the encoder with the latest price of its tickers instead.
+     */
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        var encoder = new PriceDeltaEncoder();
+        var commands = session.receive()
+                .map(WebSocketMessage::getPayloadAsText);
+        var keyframes = Flux.interval(this.keyframeInterval).map(tick -> KEYFRAME);
+        var frames = Flux.merge(commands, this.priceStreamBroadcaster.updates(List.of()), keyframes)
+                .takeUntilOther(session.closeStatus())
+                .filter(event -> !(event instanceof PriceUpdate priceUpdate) || encoder.isSubscribed(priceUpdate.ticker()))
+                .<byte[]>handle((event, sink) -> {
+                    var frame = this.apply(encoder, event);
+                    if (Objects.nonNull(frame)) {
+                        this.frameSize.record(frame.length);
+                        sink.next(frame);
+                    }
+                })
+                .map(frame -> session.binaryMessage(factory -> factory.wrap(frame)))
+                .onErrorResume(IllegalArgumentException.class, ex -> {
+                    log.warn("closing price feed session {} : {}", session.getId(), ex.getMessage());
+                    return session.close(CloseStatus.BAD_DATA.withReason("invalid command")).then(Mono.empty());
+                });
+        return session.send(frames)
+                .doOnSubscribe(subscription -> this.sessions.incrementAndGet())
+                .doFinally(signal -> this.sessions.decrementAndGet());
+    }
+
+    private byte[] apply(PriceDeltaEncoder encoder, Object event) {
+        if (event instanceof PriceUpdate priceUpdate) {
+            return encoder.delta(priceUpdate);
+        }
+        if (event instanceof String payload) {
+            var command = this.decode(payload);
+            return switch (command.action()) {
+                case SUBSCRIBE -> {
+                    encoder.subscribe(command.tickers());
+                    command.tickers().forEach(ticker -> this.priceStreamBroadcaster.latest(ticker).ifPresent(encoder::record));
+                    yield encoder.keyframe();
+                }
+                case UNSUBSCRIBE -> {
+                    encoder.unsubscribe(command.tickers());
+                    yield null;
+                }
+            };
+        }
+        return encoder.keyframe();
+    }
+
+    private PriceFeedCommand decode(String payload) {
+        try {
+            var command = this.objectMapper.readValue(payload, PriceFeedCommand.class);
+            if (Objects.isNull(command.action()) || Objects.isNull(command.tickers()) || command.tickers().contains(null)) {
+                throw new IllegalArgumentException("missing action or tickers");
+            }
+            return command;
+        } catch (IOException ex) {
+            throw new IllegalArgumentException(ex.getMessage(), ex);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.controller;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.CandleInterval;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.Candle;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.Tick;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.ApplicationExceptions;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.TickHistory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/stock")
+public class StockHistoryController {
+
+    private final TickHistory tickHistory;
+
+    public StockHistoryController(TickHistory tickHistory) {
+        this.tickHistory = tickHistory;
+    }
+
+    @GetMapping("/{ticker}/candles")
+    public Mono<List<Candle>> candles(@PathVariable("ticker") Ticker ticker,
+                                      @RequestParam(name = "interval", defaultValue = "1m") String interval,
+                                      @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        if (limit < 1 || limit > this.tickHistory.candleCapacity()) {
+            return ApplicationExceptions.invalidLimit(this.tickHistory.candleCapacity());
+        }
+        return CandleInterval.fromLabel(interval)
+                .map(candleInterval -> Mono.fromSupplier(() -> this.tickHistory.candles(ticker, candleInterval, limit)))
+                .orElseGet(() -> ApplicationExceptions.unsupportedInterval(interval));
+    }
+
+    @GetMapping("/{ticker}/ticks")
+    public Mono<List<Tick>> ticks(@PathVariable("ticker") Ticker ticker,
+                                  @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        if (limit < 1 || limit > this.tickHistory.tickCapacity()) {
+            return ApplicationExceptions.invalidLimit(this.tickHistory.tickCapacity());
+        }
+        return Mono.fromSupplier(() -> this.tickHistory.ticks(ticker, limit));
+    }
+}
@@ -1,29 +1,50 @@
 package au.com.innovativecoder.tradeaggregatorservicewebflux.controller;
 
-import au.com.innovativecoder.tradeaggregatorservicewebflux.client.StockServiceClient;
-import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceStreamBroadcaster;
 import org.springframework.http.MediaType;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
-import reactor.core.publisher.Flux;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/stock")
 public class StockPriceStreamController {
 
-    private static final Logger log = LoggerFactory.getLogger(StockPriceStreamController.class);
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
 
-    private final StockServiceClient stockServiceClient;
+    private final PriceStreamBroadcaster priceStreamBroadcaster;
 
-    public StockPriceStreamController(StockServiceClient stockServiceClient) {
-        this.stockServiceClient = stockServiceClient;
+    public StockPriceStreamController(PriceStreamBroadcaster priceStreamBroadcaster) {
+        this.priceStreamBroadcaster = priceStreamBroadcaster;
     }
 
     @GetMapping(value = "/price-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<PriceUpdate> priceUpdateStream() {
-        return this.stockServiceClient.priceUpdatesStream();
+    public Mono<Void> priceUpdateStream(@RequestParam(name = "tickers", required = false) Set<Ticker> tickers,
+                                        @RequestHeader(name = LAST_EVENT_ID, required = false) String lastEventId,
+                                        ServerHttpResponse response) {
+        return this.priceStreamBroadcaster.write(this.priceStreamBroadcaster.frames(tickers, this.parse(lastEventId)), response);
+    }
+
+    @GetMapping(value = "/{ticker}/price-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Mono<Void> tickerPriceUpdateStream(@PathVariable("ticker") Ticker ticker,
+                                              @RequestHeader(name = LAST_EVENT_ID, required = false) String lastEventId,
+                                              ServerHttpResponse response) {
+        return this.priceStreamBroadcaster.write(this.priceStreamBroadcaster.frames(Set.of(ticker), this.parse(lastEventId)), response);
+    }
+
+    /**
+     * Returns the id of the last event a reconnecting `EventSource` received, or null for a new subscriber.
+     *
+     * An id this instance did not issue is not rejected, the subscriber starts from a snapshot instead.
+     */
+    private String parse(String lastEventId) {
+        if (Objects.isNull(lastEventId) || lastEventId.isBlank()) {
+            return null;
+        }
+        return lastEventId.trim();
     }
 }
@@ -0,0 +1,36 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.domain;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public enum CandleInterval {
+    ONE_SECOND("1s", Duration.ofSeconds(1)),
+    FIVE_SECONDS("5s", Duration.ofSeconds(5)),
+    ONE_MINUTE("1m", Duration.ofMinutes(1)),
+    FIVE_MINUTES("5m", Duration.ofMinutes(5)),
+    FIFTEEN_MINUTES("15m", Duration.ofMinutes(15)),
+    ONE_HOUR("1h", Duration.ofHours(1));
+
+    private final String label;
+    private final long millis;
+
+    CandleInterval(String label, Duration duration) {
+        this.label = label;
+        this.millis = duration.toMillis();
+    }
+
+    public String label() {
+        return this.label;
+    }
+
+    public long millis() {
+        return this.millis;
+    }
+
+    public static Optional<CandleInterval> fromLabel(String label) {
+        return Stream.of(values())
+                .filter(interval -> interval.label.equals(label))
+                .findFirst();
+    }
+}
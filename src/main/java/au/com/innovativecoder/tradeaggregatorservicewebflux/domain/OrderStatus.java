@@ -0,0 +1,9 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.domain;
+
+public enum OrderStatus {
+    OPEN,
+    FIRED,
+    FILLED,
+    FAILED,
+    CANCELLED
+}
@@ -0,0 +1,6 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.domain;
+
+public enum PriceFeedAction {
+    SUBSCRIBE,
+    UNSUBSCRIBE
+}
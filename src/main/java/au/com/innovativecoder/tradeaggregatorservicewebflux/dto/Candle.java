@@ -0,0 +1,8 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.dto;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+
+import java.time.LocalDateTime;
+
+public record Candle(Ticker ticker, LocalDateTime start, Integer open, Integer high, Integer low, Integer close, Integer ticks) {
+}
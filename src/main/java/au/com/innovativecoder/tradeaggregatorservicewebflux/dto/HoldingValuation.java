@@ -0,0 +1,6 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.dto;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+
+public record HoldingValuation(Ticker ticker, Integer quantity, Integer price, Long value) {
+}
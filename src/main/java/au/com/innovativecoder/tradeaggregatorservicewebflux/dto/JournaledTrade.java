@@ -0,0 +1,9 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.dto;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+
+import java.time.LocalDateTime;
+
+public record JournaledTrade(LocalDateTime time, Integer customer, Ticker ticker, TradeAction action, Integer price, Integer quantity, Integer totalPrice, Integer balance) {
+}
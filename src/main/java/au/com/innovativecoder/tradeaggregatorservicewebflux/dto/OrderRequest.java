@@ -0,0 +1,12 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.dto;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.OrderType;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+
+public record OrderRequest(Ticker ticker, TradeAction action, Integer quantity, OrderType type, Integer triggerPrice) {
+
+    public TradeRequest toTradeRequest() {
+        return new TradeRequest(this.ticker, this.action, this.quantity);
+    }
+}
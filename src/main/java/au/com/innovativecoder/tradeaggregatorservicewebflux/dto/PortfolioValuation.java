@@ -0,0 +1,4 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.dto;
+
+public record PortfolioValuation(Integer customer, Integer balance, Long marketValue, Long totalValue, HoldingValuation holding) {
+}
@@ -0,0 +1,9 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.dto;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.PriceFeedAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+
+import java.util.List;
+
+public record PriceFeedCommand(PriceFeedAction action, List<Ticker> tickers) {
+}
@@ -0,0 +1,14 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.dto;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.OrderStatus;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.OrderType;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+
+public record RestingOrder(Long id, Integer customer, Ticker ticker, TradeAction action, Integer quantity, OrderType type, Integer triggerPrice,
+                           OrderStatus status, String reason) {
+
+    public RestingOrder withStatus(OrderStatus status, String reason) {
+        return new RestingOrder(this.id, this.customer, this.ticker, this.action, this.quantity, this.type, this.triggerPrice, status, reason);
+    }
+}
@@ -0,0 +1,6 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.dto;
+
+import java.time.LocalDateTime;
+
+public record Tick(LocalDateTime time, Integer price) {
+}
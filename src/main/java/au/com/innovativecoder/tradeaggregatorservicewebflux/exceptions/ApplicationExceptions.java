@@ -8,10 +8,18 @@ public class ApplicationExceptions {
         return Mono.error(new CustomerNotFoundException(customerId));
     }
 
+    public static <T>Mono<T> orderNotFound(Long orderId) {
+        return Mono.error(new OrderNotFoundException(orderId));
+    }
+
     public static <T>Mono<T> invalidTradeRequest(String message) {
         return Mono.error(new InvalidTradeRequestException(message));
     }
 
+    public static <T>Mono<T> malformedTradeRequest() {
+        return Mono.error(new InvalidTradeRequestException("Trade request is not valid JSON"));
+    }
+
     public static <T>Mono<T> missingTicker() {
         return Mono.error(new InvalidTradeRequestException("Ticker is required"));
     }
@@ -23,4 +31,44 @@ public class ApplicationExceptions {
     public static <T>Mono<T> invalidQuantity() {
         return Mono.error(new InvalidTradeRequestException("Quantity should be > 0"));
     }
+
+    public static <T>Mono<T> missingOrderType() {
+        return Mono.error(new InvalidTradeRequestException("Order Type is required"));
+    }
+
+    public static <T>Mono<T> invalidTriggerPrice() {
+        return Mono.error(new InvalidTradeRequestException("Trigger Price should be > 0"));
+    }
+
+    public static <T>Mono<T> downstreamOverloaded(String downstream) {
+        return Mono.error(new DownstreamUnavailableException(downstream, "overloaded"));
+    }
+
+    public static <T>Mono<T> downstreamCircuitOpen(String downstream) {
+        return Mono.error(new DownstreamUnavailableException(downstream, "unavailable"));
+    }
+
+    public static <T>Mono<T> deadlineExceeded() {
+        return Mono.error(new DeadlineExceededException());
+    }
+
+    public static <T>Mono<T> invalidIdempotencyKey(int maxLength) {
+        return Mono.error(new InvalidRequestException("Idempotency-Key should be between 1 and " + maxLength + " characters"));
+    }
+
+    public static <T>Mono<T> idempotencyKeyReused(String idempotencyKey) {
+        return Mono.error(new InvalidRequestException("Idempotency-Key " + idempotencyKey + " was used for a different trade request"));
+    }
+
+    public static <T>Mono<T> unsupportedInterval(String interval) {
+        return Mono.error(new InvalidRequestException("Unsupported interval " + interval));
+    }
+
+    public static <T>Mono<T> invalidLimit(int max) {
+        return Mono.error(new InvalidRequestException("Limit should be between 1 and " + max));
+    }
+
+    public static <T>Mono<T> invalidWindow(int maxMinutes) {
+        return Mono.error(new InvalidRequestException("Minutes should be between 1 and " + maxMinutes));
+    }
 }
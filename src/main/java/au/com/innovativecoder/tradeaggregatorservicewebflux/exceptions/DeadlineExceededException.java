@@ -0,0 +1,10 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions;
+
+public class DeadlineExceededException extends RuntimeException {
+
+    private static final String MESSAGE = "Request did not complete within its deadline";
+
+    public DeadlineExceededException() {
+        super(MESSAGE);
+    }
+}
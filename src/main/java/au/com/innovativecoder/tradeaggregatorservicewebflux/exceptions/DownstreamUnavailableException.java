@@ -0,0 +1,10 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions;
+
+public class DownstreamUnavailableException extends RuntimeException {
+
+    private static final String MESSAGE = "%s is %s, please retry later";
+
+    public DownstreamUnavailableException(String downstream, String reason) {
+        super(MESSAGE.formatted(downstream, reason));
+    }
+}
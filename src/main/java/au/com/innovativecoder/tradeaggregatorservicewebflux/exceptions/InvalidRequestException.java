@@ -0,0 +1,8 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions;
+
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,257 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.journal;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.JournaledTrade;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import sun.misc.Unsafe;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+/**
+ * One memory-mapped segment file of the trade journal, holding fixed-size records in the order they were written.
+ *
+ * <pre>
+ *  0  int64  time in epoch millis, written last, 0 for a record not written yet
+ *  8  int32  customer
+ * 12  int32  price
+ * 16  int32  quantity
+ * 20  int32  total price
+ * 24  int32  balance
+ * 28  int8   ticker ordinal, -1 when absent
+ * 29  int8   trade action ordinal, -1 when absent
+ * 30  int16  reserved
+ * </pre>
+ *
+ * Record times never decrease, so a time range is located by binary search. There is a single writer, and
+ * readers only read the records counted before they started.
+ *
+ * A segment is reference counted, so that a retired segment is only unmapped and deleted once the scans reading it
+ * have ended.
+ */
+final class JournalSegment {
+
+    static final int RECORD_SIZE = 32;
+
+    private static final Logger log = LoggerFactory.getLogger(JournalSegment.class);
+    private static final Unsafe UNSAFE = unsafe();
+
+    private static final Ticker[] TICKERS = Ticker.values();
+    private static final TradeAction[] ACTIONS = TradeAction.values();
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final AtomicInteger references = new AtomicInteger(1);
+    private volatile int count;
+    private int forced;
+
+    private JournalSegment(Path path, MappedByteBuffer buffer, int count) {
+        this.path = path;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity() / RECORD_SIZE;
+        this.count = count;
+        this.forced = count;
+    }
+
+    /**
+     * Creates a new segment file sized for the given number of records and maps it for writing.
+     */
+    static JournalSegment create(Path path, int capacity) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new JournalSegment(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE), 0);
+        }
+    }
+
+    /**
+     * Maps an existing segment file for reading, and for appending to when writable. The number of records is found
+     * by binary search for the first record not written.
+     */
+    static JournalSegment open(Path path, boolean writable) throws IOException {
+        var options = writable ? new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE} : new StandardOpenOption[]{StandardOpenOption.READ};
+        try (var channel = FileChannel.open(path, options)) {
+            var buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, channel.size() - channel.size() % RECORD_SIZE);
+            var low = 0;
+            var high = buffer.capacity() / RECORD_SIZE;
+            while (low < high) {
+                var mid = (low + high) >>> 1;
+                if (buffer.getLong(mid * RECORD_SIZE) != 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return new JournalSegment(path, buffer, low);
+        }
+    }
+
+    Path path() {
+        return this.path;
+    }
+
+    int count() {
+        return this.count;
+    }
+
+    boolean isFull() {
+        return this.count == this.capacity;
+    }
+
+    long size() {
+        return (long) this.capacity * RECORD_SIZE;
+    }
+
+    long time(int index) {
+        return this.buffer.getLong(index * RECORD_SIZE);
+    }
+
+    void append(long time, StockTradeResponse response) {
+        var offset = this.count * RECORD_SIZE;
+        this.buffer.putInt(offset + 8, Objects.requireNonNullElse(response.customer(), 0));
+        this.buffer.putInt(offset + 12, Objects.requireNonNullElse(response.price(), 0));
+        this.buffer.putInt(offset + 16, Objects.requireNonNullElse(response.quantity(), 0));
+        this.buffer.putInt(offset + 20, Objects.requireNonNullElse(response.totalPrice(), 0));
+        this.buffer.putInt(offset + 24, Objects.requireNonNullElse(response.balance(), 0));
+        this.buffer.put(offset + 28, (byte) (Objects.isNull(response.ticker()) ? -1 : response.ticker().ordinal()));
+        this.buffer.put(offset + 29, (byte) (Objects.isNull(response.action()) ? -1 : response.action().ordinal()));
+        this.buffer.putLong(offset, time);
+        this.count++;
+    }
+
+    /**
+     * Forces the records appended since the last call to the storage device.
+     */
+    void force() {
+        var end = this.count;
+        if (this.forced < end) {
+            this.buffer.force(this.forced * RECORD_SIZE, (end - this.forced) * RECORD_SIZE);
+            this.forced = end;
+        }
+    }
+
+    /**
+     * Reads the records in the given time range whose customer matches the given predicate, oldest first.
+     *
+     * @param fromMillis the start of the range in epoch millis, inclusive
+     * @param toMillis the end of the range in epoch millis, exclusive
+     * @param customers the predicate the customer of a record has to match
+     * @return a Flux of the matching records
+     */
+    Flux<JournaledTrade> scan(long fromMillis, long toMillis, IntPredicate customers) {
+        return Flux.defer(() -> {
+            if (!this.retain()) {
+                return Flux.empty();
+            }
+            return this.records(fromMillis, toMillis, customers)
+                    .doFinally(signal -> this.release());
+        });
+    }
+
+    /**
+     * Releases the journal's reference to this segment. The segment is unmapped and its file deleted once the last
+     * scan reading it has ended.
+     */
+    void retire() {
+        this.release();
+    }
+
+    private boolean retain() {
+        while (true) {
+            var references = this.references.get();
+            if (references == 0) {
+                return false;
+            }
+            if (this.references.compareAndSet(references, references + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void release() {
+        if (this.references.decrementAndGet() == 0) {
+            UNSAFE.invokeCleaner(this.buffer);
+            try {
+                Files.deleteIfExists(this.path);
+            } catch (IOException ex) {
+                log.error("trade journal segment {} could not be deleted : {}", this.path, ex.getMessage());
+            }
+        }
+    }
+
+    private Flux<JournaledTrade> records(long fromMillis, long toMillis, IntPredicate customers) {
+        return Flux.defer(() -> {
+            var end = this.count;
+            if (end == 0 || this.time(0) >= toMillis || this.time(end - 1) < fromMillis) {
+                return Flux.empty();
+            }
+            return Flux.<JournaledTrade, Integer>generate(() -> this.firstAtOrAfter(fromMillis, end), (index, sink) -> {
+                while (index < end && this.time(index) < toMillis) {
+                    if (customers.test(this.buffer.getInt(index * RECORD_SIZE + 8))) {
+                        sink.next(this.read(index));
+                        return index + 1;
+                    }
+                    index++;
+                }
+                sink.complete();
+                return index;
+            });
+        });
+    }
+
+    private int firstAtOrAfter(long time, int end) {
+        var low = 0;
+        var high = end;
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (this.time(mid) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the Unsafe instance, whose `invokeCleaner` is the only way to unmap a buffer before it is collected.
+     */
+    private static Unsafe unsafe() {
+        try {
+            var field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("sun.misc.Unsafe is not available", ex);
+        }
+    }
+
+    private JournaledTrade read(int index) {
+        var offset = index * RECORD_SIZE;
+        var ticker = this.buffer.get(offset + 28);
+        var action = this.buffer.get(offset + 29);
+        return new JournaledTrade(
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(this.buffer.getLong(offset)), ZoneId.systemDefault()),
+                this.buffer.getInt(offset + 8),
+                ticker < 0 ? null : TICKERS[ticker],
+                action < 0 ? null : ACTIONS[action],
+                this.buffer.getInt(offset + 12),
+                this.buffer.getInt(offset + 16),
+                this.buffer.getInt(offset + 20),
+                this.buffer.getInt(offset + 24)
+        );
+    }
+}
@@ -0,0 +1,281 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.journal;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.JournaledTrade;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * An append-only journal of executed trades, kept in rotating memory-mapped segment files.
+ *
+ * Appending only offers the trade to a bounded queue, so the trade path never waits for the disk. A single writer
+ * thread drains the queue in batches into fixed-size records of the active segment. On start, the last segment
+ * is reopened for appending when it is not full, and a new segment is only created for the first record that does
+ * not fit. A trade that does not fit in the queue is not journaled: it is counted and logged at WARN, so the
+ * journal is not a complete audit record while the queue overflows.
+ *
+ * The fsync policy decides when written records are forced to the storage device:
+ * <ul>
+ *     <li>NEVER leaves it to the operating system, so a host crash may lose recent trades</li>
+ *     <li>INTERVAL forces at most once per fsync interval</li>
+ *     <li>ALWAYS forces every batch before the next one is written</li>
+ * </ul>
+ *
+ * Reads scan the mapped segments sequentially and locate the start of a time range by binary search.
+ *
+ * Segments other than the active one are retired, unmapped and deleted, oldest first, once their newest record is
+ * older than the maximum age, or while all segments together are larger than the maximum size. Retention is applied
+ * on start, on rotation and once a minute.
+ */
+@Component
+public class TradeJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(TradeJournal.class);
+    private static final Pattern SEGMENT_NAME = Pattern.compile("trades-(\\d{10})\\.journal");
+    private static final long RETENTION_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    public enum FsyncPolicy { NEVER, INTERVAL, ALWAYS }
+
+    private final Path directory;
+    private final int segmentCapacity;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final long maxAgeMillis;
+    private final long maxSizeBytes;
+    private final BlockingQueue<StockTradeResponse> queue;
+    private final List<JournalSegment> segments = new CopyOnWriteArrayList<>();
+    private final Counter appended;
+    private final Counter dropped;
+    private final Counter retired;
+    private volatile boolean running;
+    private Thread writer;
+    private JournalSegment active;
+    private long segmentNumber;
+    private long lastTime;
+    private long lastForcedAt;
+    private long lastRetentionAt;
+
+    /**
+     * Constructs a new TradeJournal.
+     *
+     * @param directory the directory holding the segment files
+     * @param segmentSize the size of a segment file
+     * @param queueCapacity the maximum number of trades waiting for the writer, further trades are lost to the journal
+     * @param fsyncPolicy when written records are forced to the storage device
+     * @param fsyncInterval the minimum time between two forces with the INTERVAL policy
+     * @param maxAge how long a segment is kept after its newest record was written
+     * @param maxSize the maximum total size of the segment files
+     * @param meterRegistry the registry to publish the appended, dropped, retired and queue metrics to
+     */
+    public TradeJournal(@Value("${trade.journal.directory:data/trade-journal}") Path directory,
+                        @Value("${trade.journal.segment-size:64MB}") DataSize segmentSize,
+                        @Value("${trade.journal.queue-capacity:65536}") int queueCapacity,
+                        @Value("${trade.journal.fsync:INTERVAL}") FsyncPolicy fsyncPolicy,
+                        @Value("${trade.journal.fsync-interval:1s}") Duration fsyncInterval,
+                        @Value("${trade.journal.retention.max-age:7d}") Duration maxAge,
+                        @Value("${trade.journal.retention.max-size:1GB}") DataSize maxSize,
+                        MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.segmentCapacity = Math.toIntExact(Math.max(1, segmentSize.toBytes() / JournalSegment.RECORD_SIZE));
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        this.maxAgeMillis = maxAge.toMillis();
+        this.maxSizeBytes = maxSize.toBytes();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.appended = meterRegistry.counter("trade.journal.appended");
+        this.dropped = meterRegistry.counter("trade.journal.dropped");
+        this.retired = meterRegistry.counter("trade.journal.retired");
+        Gauge.builder("trade.journal.queue", this.queue, Collection::size)
+                .description("Trades waiting to be written to the journal")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Maps the existing segments, reopens the last one for appending when it is not full, applies retention and
+     * starts the writer thread.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(this.directory);
+        List<Path> paths;
+        try (var files = Files.list(this.directory)) {
+            paths = files.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches()).sorted().toList();
+        }
+        for (var i = 0; i < paths.size(); i++) {
+            this.segments.add(JournalSegment.open(paths.get(i), i == paths.size() - 1));
+        }
+        if (!this.segments.isEmpty()) {
+            var last = this.segments.getLast();
+            var matcher = SEGMENT_NAME.matcher(last.path().getFileName().toString());
+            this.segmentNumber = matcher.matches() ? Long.parseLong(matcher.group(1)) : 0;
+            this.lastTime = last.count() > 0 ? last.time(last.count() - 1) : 0;
+            if (!last.isFull()) {
+                this.active = last;
+            }
+        }
+        this.applyRetention();
+        log.info("trade journal : {}, {} segments", this.directory.toAbsolutePath(), this.segments.size());
+        this.running = true;
+        this.writer = Thread.ofPlatform().name("trade-journal-writer").daemon().start(this::drain);
+    }
+
+    /**
+     * Stops the writer thread once it has written the trades already queued.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        this.running = false;
+        if (Objects.nonNull(this.writer)) {
+            this.writer.join();
+        }
+    }
+
+    /**
+     * Queues the given trade for the journal without blocking.
+     *
+     * @param response the trade executed by the customer service
+     */
+    public void append(StockTradeResponse response) {
+        if (!this.queue.offer(response)) {
+            this.dropped.increment();
+            log.warn("trade journal queue full, trade not journaled : {}", response);
+        }
+    }
+
+    /**
+     * Replays the trades of all customers journaled in the given time range, oldest first.
+     *
+     * @param fromMillis the start of the range in epoch millis, inclusive
+     * @param toMillis the end of the range in epoch millis, exclusive
+     * @return a Flux of the journaled trades
+     */
+    public Flux<JournaledTrade> replay(long fromMillis, long toMillis) {
+        return this.scan(fromMillis, toMillis, customer -> true);
+    }
+
+    /**
+     * Replays the trades of the given customer journaled in the given time range, oldest first.
+     *
+     * @param customerId the ID of the customer
+     * @param fromMillis the start of the range in epoch millis, inclusive
+     * @param toMillis the end of the range in epoch millis, exclusive
+     * @return a Flux of the journaled trades
+     */
+    public Flux<JournaledTrade> trades(Integer customerId, long fromMillis, long toMillis) {
+        return this.scan(fromMillis, toMillis, customer -> customer == customerId);
+    }
+
+    private Flux<JournaledTrade> scan(long fromMillis, long toMillis, IntPredicate customers) {
+        return Flux.fromIterable(this.segments)
+                .concatMap(segment -> segment.scan(fromMillis, toMillis, customers))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void drain() {
+        var batch = new ArrayList<StockTradeResponse>();
+        while (this.running || !this.queue.isEmpty()) {
+            try {
+                var first = this.queue.poll(100, TimeUnit.MILLISECONDS);
+                if (Objects.nonNull(first)) {
+                    batch.add(first);
+                    this.queue.drainTo(batch);
+                    this.write(batch);
+                }
+                this.sync(false);
+                if (System.nanoTime() - this.lastRetentionAt >= RETENTION_INTERVAL_NANOS) {
+                    this.applyRetention();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                log.warn("trade journal writer interrupted, {} queued trades not journaled", this.queue.size());
+                break;
+            } catch (IOException | RuntimeException ex) {
+                log.error("trade journal write failed : {}", ex.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+        this.sync(true);
+    }
+
+    private void write(List<StockTradeResponse> batch) throws IOException {
+        for (var response : batch) {
+            if (Objects.isNull(this.active) || this.active.isFull()) {
+                this.rotate();
+            }
+            this.lastTime = Math.max(this.lastTime, System.currentTimeMillis());
+            this.active.append(this.lastTime, response);
+            this.appended.increment();
+        }
+    }
+
+    private void sync(boolean closing) {
+        var now = System.nanoTime();
+        if (Objects.isNull(this.active)) {
+            return;
+        }
+        if (this.fsyncPolicy == FsyncPolicy.ALWAYS
+                || (this.fsyncPolicy == FsyncPolicy.INTERVAL && (closing || now - this.lastForcedAt >= this.fsyncIntervalNanos))) {
+            this.active.force();
+            this.lastForcedAt = now;
+        }
+    }
+
+    private void rotate() throws IOException {
+        if (Objects.nonNull(this.active) && this.fsyncPolicy != FsyncPolicy.NEVER) {
+            this.active.force();
+        }
+        this.active = JournalSegment.create(this.directory.resolve("trades-%010d.journal".formatted(++this.segmentNumber)), this.segmentCapacity);
+        this.segments.add(this.active);
+        this.applyRetention();
+    }
+
+    /**
+     * Retires the oldest segments that are past the maximum age or beyond the maximum total size. The active
+     * segment is always kept, and an empty segment that is not active is retired as holding nothing.
+     */
+    private void applyRetention() {
+        this.lastRetentionAt = System.nanoTime();
+        var oldest = System.currentTimeMillis() - this.maxAgeMillis;
+        var size = this.segments.stream().mapToLong(JournalSegment::size).sum();
+        for (var segment : this.segments) {
+            if (segment == this.active) {
+                break;
+            }
+            var count = segment.count();
+            if (count > 0 && size <= this.maxSizeBytes && segment.time(count - 1) >= oldest) {
+                break;
+            }
+            this.segments.remove(segment);
+            size -= segment.size();
+            segment.retire();
+            this.retired.increment();
+            log.info("trade journal segment {} retired", segment.path().getFileName());
+        }
+    }
+}
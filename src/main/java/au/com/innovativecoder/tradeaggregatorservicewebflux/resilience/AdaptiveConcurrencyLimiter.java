@@ -0,0 +1,196 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.resilience;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.ApplicationExceptions;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.CustomerNotFoundException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.DeadlineExceededException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.InvalidTradeRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the number of concurrent calls to a downstream service, adapting the limit to the observed latency.
+ *
+ * The limit follows the TCP Vegas idea: the ratio between the lowest and the current round trip time estimates
+ * how many calls are queueing downstream. The limit grows while that queue is short and shrinks when it grows
+ * or when calls fail. Calls above the limit are rejected immediately instead of piling up.
+ *
+ * A circuit breaker sits in front of the limiter. After a run of consecutive failures it opens and rejects all
+ * calls for a cool-down period, then lets a single probe call through to decide whether to close again.
+ * Business errors such as an unknown customer are responses of a healthy downstream and count as successes.
+ * A call cut short by the deadline of its caller counts as neither.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    private enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final String name;
+    private final LimiterProperties properties;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final Counter shed;
+    private final Counter rejected;
+    private volatile double limit;
+    private volatile long openedAt;
+    private long minRttNanos = Long.MAX_VALUE;
+    private long samples;
+
+    /**
+     * Constructs a new AdaptiveConcurrencyLimiter.
+     *
+     * @param name the name of the downstream service, used in error messages and metric tags
+     * @param properties the limit and circuit breaker settings
+     * @param meterRegistry the registry to publish the limit, in-flight, shed and circuit metrics to
+     */
+    public AdaptiveConcurrencyLimiter(String name, LimiterProperties properties, MeterRegistry meterRegistry) {
+        this(name, properties, meterRegistry, System::nanoTime);
+    }
+
+    /**
+     * Constructs a new AdaptiveConcurrencyLimiter that reads the time from the given clock.
+     *
+     * @param name the name of the downstream service, used in error messages and metric tags
+     * @param properties the limit and circuit breaker settings
+     * @param meterRegistry the registry to publish the limit, in-flight, shed and circuit metrics to
+     * @param nanoClock the clock to time calls and the open circuit with, in the units of `System.nanoTime()`
+     */
+    public AdaptiveConcurrencyLimiter(String name, LimiterProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.name = name;
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.limit = properties.getInitialLimit();
+        this.shed = Counter.builder("downstream.limiter.shed").tag("downstream", name).register(meterRegistry);
+        this.rejected = Counter.builder("downstream.circuit.rejected").tag("downstream", name).register(meterRegistry);
+        Gauge.builder("downstream.limiter.limit", this, AdaptiveConcurrencyLimiter::limit).tag("downstream", name).register(meterRegistry);
+        Gauge.builder("downstream.limiter.in-flight", this.inFlight, AtomicInteger::get).tag("downstream", name).register(meterRegistry);
+        Gauge.builder("downstream.circuit.state", this.state, s -> s.get().ordinal())
+                .description("0 = closed, 1 = half open, 2 = open")
+                .tag("downstream", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Guards the given downstream call with the circuit breaker and the concurrency limit.
+     *
+     * @param call the downstream call
+     * @param <T> the type of the call result
+     * @return a Mono of the call result, or a `DownstreamUnavailableException` error when the call was rejected
+     */
+    public <T> Mono<T> guard(Mono<T> call) {
+        if (!this.properties.isEnabled()) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            if (!this.tryPass()) {
+                this.rejected.increment();
+                return ApplicationExceptions.downstreamCircuitOpen(this.name);
+            }
+            if (!this.tryAcquire()) {
+                this.shed.increment();
+                this.releaseProbe();
+                return ApplicationExceptions.downstreamOverloaded(this.name);
+            }
+            var start = this.nanoClock.getAsLong();
+            return call
+                    .doOnSuccess(result -> this.onSuccess(this.nanoClock.getAsLong() - start))
+                    .doOnError(ex -> this.onError(ex, this.nanoClock.getAsLong() - start))
+                    .doFinally(signal -> {
+                        this.inFlight.decrementAndGet();
+                        if (signal == SignalType.CANCEL) {
+                            this.releaseProbe();
+                        }
+                    });
+        });
+    }
+
+    private double limit() {
+        return this.limit;
+    }
+
+    private boolean tryPass() {
+        return switch (this.state.get()) {
+            case CLOSED -> true;
+            case HALF_OPEN -> false;
+            case OPEN -> this.nanoClock.getAsLong() - this.openedAt >= this.properties.getOpenDuration().toNanos()
+                    && this.state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        };
+    }
+
+    private void releaseProbe() {
+        this.state.compareAndSet(State.HALF_OPEN, State.OPEN);
+    }
+
+    private boolean tryAcquire() {
+        for (;;) {
+            var current = this.inFlight.get();
+            if (current >= (int) this.limit) {
+                return false;
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void onSuccess(long rttNanos) {
+        this.consecutiveFailures.set(0);
+        if (this.state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            log.info("{} circuit closed", this.name);
+        }
+        this.sample(rttNanos);
+    }
+
+    private void onError(Throwable ex, long rttNanos) {
+        if (ex instanceof DeadlineExceededException) {
+            this.releaseProbe();
+            return;
+        }
+        if (ex instanceof CustomerNotFoundException || ex instanceof InvalidTradeRequestException) {
+            this.onSuccess(rttNanos);
+            return;
+        }
+        this.decrease();
+        if (this.state.compareAndSet(State.HALF_OPEN, State.OPEN)
+                || (this.consecutiveFailures.incrementAndGet() >= this.properties.getFailureThreshold() && this.state.compareAndSet(State.CLOSED, State.OPEN))) {
+            this.openedAt = this.nanoClock.getAsLong();
+            log.error("{} circuit opened after failure : {}", this.name, ex.getMessage());
+        }
+    }
+
+    /**
+     * Adjusts the limit with a latency sample.
+     *
+     * The minimum round trip time is reset periodically so that the limiter follows a downstream whose
+     * baseline latency has moved.
+     */
+    private synchronized void sample(long rttNanos) {
+        if (++this.samples % this.properties.getMinRttResetSamples() == 0) {
+            this.minRttNanos = rttNanos;
+        }
+        this.minRttNanos = Math.min(this.minRttNanos, rttNanos);
+        var current = this.limit;
+        var queue = current * (1 - (double) this.minRttNanos / Math.max(rttNanos, 1));
+        var step = Math.max(1, Math.log10(current));
+        if (queue < 3 * step && this.inFlight.get() * 2 >= current) {
+            this.limit = Math.min(this.properties.getMaxLimit(), current + step);
+        } else if (queue > 6 * step) {
+            this.limit = Math.max(this.properties.getMinLimit(), current - step);
+        }
+    }
+
+    private synchronized void decrease() {
+        this.limit = Math.max(this.properties.getMinLimit(), this.limit * this.properties.getBackoffRatio());
+    }
+}
@@ -0,0 +1,41 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.resilience;
+
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * The point in time by which a request has to be answered.
+ *
+ * A deadline is carried in the Reactor context of the request pipeline, so every downstream call made on its behalf
+ * can find out how much of the budget is left. It is based on `System.nanoTime()` and only meaningful within this
+ * process; between services it travels as the remaining budget in milliseconds in the {@link #HEADER} header.
+ *
+ * @param expiresAt the `System.nanoTime()` value at which the deadline expires
+ */
+public record Deadline(long expiresAt) {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    /**
+     * Returns the deadline expiring after the given timeout from now.
+     */
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * Returns the deadline of the pipeline the given context belongs to, if it has one.
+     */
+    public static Optional<Deadline> current(ContextView context) {
+        return context.getOrEmpty(Deadline.class);
+    }
+
+    /**
+     * Returns the time left until the deadline expires, zero once it has expired.
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, this.expiresAt - System.nanoTime()));
+    }
+}
@@ -0,0 +1,73 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.resilience;
+
+import java.time.Duration;
+
+/**
+ * Request hedging settings of one downstream service.
+ */
+public class HedgeProperties {
+
+    private boolean enabled;
+    private double percentile = 0.95;
+    private double budget = 0.05;
+    private double maxTokens = 10;
+    private int window = 1000;
+    private int minSamples = 100;
+    private Duration minDelay = Duration.ofMillis(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public void setPercentile(double percentile) {
+        this.percentile = percentile;
+    }
+
+    public double getBudget() {
+        return budget;
+    }
+
+    public void setBudget(double budget) {
+        this.budget = budget;
+    }
+
+    public double getMaxTokens() {
+        return maxTokens;
+    }
+
+    public void setMaxTokens(double maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public void setWindow(int window) {
+        this.window = window;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    public void setMinSamples(int minSamples) {
+        this.minSamples = minSamples;
+    }
+
+    public Duration getMinDelay() {
+        return minDelay;
+    }
+
+    public void setMinDelay(Duration minDelay) {
+        this.minDelay = minDelay;
+    }
+}
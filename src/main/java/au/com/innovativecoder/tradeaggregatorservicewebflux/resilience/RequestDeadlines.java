@@ -0,0 +1,108 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.resilience;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.ApplicationExceptions;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.DeadlineExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Bounds request pipelines by a deadline and propagates it to the downstream services.
+ *
+ * The timeout of a request is taken from its {@link Deadline#HEADER} header in milliseconds, capped at the
+ * configured maximum, or is the configured default when the header is missing or invalid. The pipeline is cancelled
+ * with a `DeadlineExceededException` when the deadline expires, and the deadline is put in its Reactor context.
+ *
+ * Downstream calls made within such a pipeline get only the remaining budget: they forward it in the same header
+ * and are cancelled when it runs out, or fail without being sent when it already has.
+ */
+@Component
+public class RequestDeadlines {
+
+    private final Duration defaultTimeout;
+    private final Duration maxTimeout;
+    private final MeterRegistry meterRegistry;
+    private final Counter expired;
+
+    /**
+     * Constructs a new RequestDeadlines.
+     *
+     * @param defaultTimeout the timeout of a request without a valid timeout header
+     * @param maxTimeout the maximum timeout a request may ask for
+     * @param meterRegistry the registry to publish the expired request and downstream call counters to
+     */
+    public RequestDeadlines(@Value("${request.deadline.default-timeout:5s}") Duration defaultTimeout,
+                            @Value("${request.deadline.max-timeout:30s}") Duration maxTimeout,
+                            MeterRegistry meterRegistry) {
+        this.defaultTimeout = defaultTimeout;
+        this.maxTimeout = maxTimeout;
+        this.meterRegistry = meterRegistry;
+        this.expired = meterRegistry.counter("request.deadline.expired");
+    }
+
+    /**
+     * Returns a transformation bounding a request pipeline by the deadline asked for in the given header value.
+     *
+     * @param timeoutHeader the value of the timeout header of the request, or null
+     * @param <T> the type of the pipeline result
+     * @return a function applying the deadline to the pipeline
+     */
+    public <T> Function<Mono<T>, Mono<T>> bound(String timeoutHeader) {
+        return pipeline -> Mono.defer(() -> {
+            var deadline = Deadline.after(this.timeout(timeoutHeader));
+            return pipeline.timeout(deadline.remaining(), ApplicationExceptions.deadlineExceeded())
+                    .doOnError(DeadlineExceededException.class, ex -> this.expired.increment())
+                    .contextWrite(context -> context.put(Deadline.class, deadline));
+        });
+    }
+
+    /**
+     * Returns a WebClient filter propagating the deadline of the calling pipeline to the given downstream service.
+     *
+     * @param downstream the name of the downstream service, used in metric tags
+     * @return the filter
+     */
+    public ExchangeFilterFunction propagate(String downstream) {
+        var downstreamExpired = Counter.builder("downstream.deadline.expired").tag("downstream", downstream).register(this.meterRegistry);
+        return (request, next) -> Mono.deferContextual(context -> Deadline.current(context)
+                .map(deadline -> {
+                    var remaining = deadline.remaining();
+                    if (remaining.isZero()) {
+                        downstreamExpired.increment();
+                        return ApplicationExceptions.<ClientResponse>deadlineExceeded();
+                    }
+                    var bounded = ClientRequest.from(request)
+                            .header(Deadline.HEADER, String.valueOf(Math.max(1, remaining.toMillis())))
+                            .build();
+                    return next.exchange(bounded)
+                            .timeout(remaining, Mono.defer(() -> {
+                                downstreamExpired.increment();
+                                return ApplicationExceptions.deadlineExceeded();
+                            }));
+                })
+                .orElseGet(() -> next.exchange(request)));
+    }
+
+    private Duration timeout(String timeoutHeader) {
+        if (Objects.nonNull(timeoutHeader)) {
+            try {
+                var millis = Long.parseLong(timeoutHeader.trim());
+                if (millis > 0) {
+                    return Duration.ofMillis(Math.min(millis, this.maxTimeout.toMillis()));
+                }
+            } catch (NumberFormatException ex) {
+                // an invalid header falls back to the default timeout
+            }
+        }
+        return this.defaultTimeout;
+    }
+}
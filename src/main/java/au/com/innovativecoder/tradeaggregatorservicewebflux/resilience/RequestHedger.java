@@ -0,0 +1,138 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hedges idempotent calls to a downstream service against slow instances.
+ *
+ * When the first attempt of a call has not answered within the hedge delay, a second attempt is started. The
+ * first value wins and the other attempt is cancelled. The first attempt alone decides a call that fails, so errors
+ * such as an unknown customer are not retried, and a failed hedge is ignored.
+ *
+ * The hedge delay is the configured percentile of the latencies of the latest attempts, recomputed every tenth of
+ * the window. No call is hedged before the minimum number of latencies has been observed. An attempt cancelled before
+ * it answered, such as a slow attempt that lost to its hedge, is sampled with the time it ran for, a lower bound of
+ * its latency. Sampling only the attempts that answered would drop the slowest ones and let the delay drift down.
+ *
+ * Hedges are paid from a token budget. Every call earns `budget` tokens and a hedge spends one, so hedges stay
+ * below that fraction of the calls, while up to `maxTokens` saved tokens absorb a burst of slow answers.
+ */
+public class RequestHedger {
+
+    private static final long TOKEN = 1000;
+
+    private final HedgeProperties properties;
+    private final long[] latencies;
+    private final int recomputeInterval;
+    private final long minDelayNanos;
+    private final long earnedPerCall;
+    private final long maxTokens;
+    private final AtomicLong tokens = new AtomicLong();
+    private final Counter calls;
+    private final Counter hedged;
+    private final Counter won;
+    private final Counter exhausted;
+    private long samples;
+    private volatile long delayNanos = Long.MAX_VALUE;
+
+    /**
+     * Constructs a new RequestHedger.
+     *
+     * @param name the name of the downstream service, used in metric tags
+     * @param properties the hedging settings
+     * @param meterRegistry the registry to publish the call, hedge, win, budget and delay metrics to
+     */
+    public RequestHedger(String name, HedgeProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.latencies = new long[properties.getWindow()];
+        this.recomputeInterval = Math.max(1, properties.getWindow() / 10);
+        this.minDelayNanos = properties.getMinDelay().toNanos();
+        this.earnedPerCall = Math.round(properties.getBudget() * TOKEN);
+        this.maxTokens = Math.round(properties.getMaxTokens() * TOKEN);
+        this.calls = Counter.builder("downstream.hedge.calls").tag("downstream", name).register(meterRegistry);
+        this.hedged = Counter.builder("downstream.hedge.hedged").tag("downstream", name).register(meterRegistry);
+        this.won = Counter.builder("downstream.hedge.won").tag("downstream", name).register(meterRegistry);
+        this.exhausted = Counter.builder("downstream.hedge.budget-exhausted").tag("downstream", name).register(meterRegistry);
+        Gauge.builder("downstream.hedge.delay", this, RequestHedger::delaySeconds)
+                .description("Time after which a call is hedged, NaN while not enough latencies are known")
+                .baseUnit("seconds")
+                .tag("downstream", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hedges the given idempotent call. The call is subscribed to once per attempt.
+     *
+     * @param call the downstream call
+     * @param <T> the type of the call result
+     * @return a Mono of the result of the attempt answering first
+     */
+    public <T> Mono<T> hedge(Mono<T> call) {
+        if (!this.properties.isEnabled()) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            this.calls.increment();
+            this.tokens.updateAndGet(available -> Math.min(this.maxTokens, available + this.earnedPerCall));
+            var primary = this.timed(call);
+            var delay = this.delayNanos;
+            if (delay == Long.MAX_VALUE) {
+                return primary;
+            }
+            var hedge = Mono.delay(Duration.ofNanos(delay))
+                    .flatMap(tick -> {
+                        if (!this.trySpend()) {
+                            this.exhausted.increment();
+                            return Mono.<T>never();
+                        }
+                        this.hedged.increment();
+                        return this.timed(call)
+                                .doOnNext(result -> this.won.increment())
+                                .onErrorResume(ex -> Mono.never());
+                    });
+            return Mono.firstWithSignal(primary, hedge);
+        });
+    }
+
+    private <T> Mono<T> timed(Mono<T> call) {
+        return Mono.defer(() -> {
+            var start = System.nanoTime();
+            return call.doOnNext(result -> this.sample(System.nanoTime() - start))
+                    .doOnCancel(() -> this.sample(System.nanoTime() - start));
+        });
+    }
+
+    private boolean trySpend() {
+        for (;;) {
+            var available = this.tokens.get();
+            if (available < TOKEN) {
+                return false;
+            }
+            if (this.tokens.compareAndSet(available, available - TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    private synchronized void sample(long latencyNanos) {
+        this.latencies[(int) (this.samples++ % this.latencies.length)] = latencyNanos;
+        if (this.samples >= this.properties.getMinSamples() && this.samples % this.recomputeInterval == 0) {
+            var sorted = Arrays.copyOf(this.latencies, (int) Math.min(this.samples, this.latencies.length));
+            Arrays.sort(sorted);
+            var index = (int) Math.ceil(this.properties.getPercentile() * sorted.length) - 1;
+            this.delayNanos = Math.max(this.minDelayNanos, sorted[Math.clamp(index, 0, sorted.length - 1)]);
+        }
+    }
+
+    private double delaySeconds() {
+        var delay = this.delayNanos;
+        return delay == Long.MAX_VALUE ? Double.NaN : delay / 1e9;
+    }
+}
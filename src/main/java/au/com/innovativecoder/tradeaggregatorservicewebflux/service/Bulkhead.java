@@ -0,0 +1,89 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the number of tasks that run at the same time.
+ *
+ * Tasks above the bound wait in a FIFO queue without blocking a thread and are started as running
+ * tasks terminate. A task cancelled while waiting is skipped.
+ */
+public class Bulkhead {
+
+    private final AtomicInteger permits;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructs a new Bulkhead.
+     *
+     * @param maxConcurrency the maximum number of tasks running at the same time
+     */
+    public Bulkhead(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency should be > 0");
+        }
+        this.permits = new AtomicInteger(maxConcurrency);
+    }
+
+    /**
+     * Runs the given task once a permit is available.
+     *
+     * @param task the task to run
+     * @param <T> the type of the task result
+     * @return a Mono of the task result
+     */
+    public <T> Mono<T> execute(Mono<T> task) {
+        return Mono.create(sink -> {
+            var claimed = new AtomicBoolean();
+            Runnable start = () -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    this.release();
+                    return;
+                }
+                sink.onDispose(task.doFinally(signal -> this.release())
+                        .subscribe(sink::success, sink::error, sink::success));
+            };
+            sink.onCancel(() -> claimed.set(true));
+            if (this.tryAcquire()) {
+                start.run();
+            } else {
+                this.waiting.offer(start);
+                this.drain();
+            }
+        });
+    }
+
+    private boolean tryAcquire() {
+        for (;;) {
+            var available = this.permits.get();
+            if (available == 0) {
+                return false;
+            }
+            if (this.permits.compareAndSet(available, available - 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void release() {
+        this.permits.incrementAndGet();
+        this.drain();
+    }
+
+    private void drain() {
+        while (!this.waiting.isEmpty() && this.tryAcquire()) {
+            var next = this.waiting.poll();
+            if (Objects.isNull(next)) {
+                this.permits.incrementAndGet();
+                continue;
+            }
+            next.run();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.service;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.client.CustomerServiceClient;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.CustomerInformation;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.Holding;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeResponse;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+@Component
+public class CustomerInformationCache {
+
+    private final CustomerServiceClient customerServiceClient;
+    private final AsyncCache<Integer, CustomerInformation> cache;
+    private final Sinks.Many<Trade> trades = Sinks.many().multicast().directBestEffort();
+
+    /**
+     * Constructs a new CustomerInformationCache in front of the given CustomerServiceClient.
+     *
+     * @param customerServiceClient the client to load customer information with on a miss
+     * @param maximumSize the maximum number of customers to keep, least recently used ones are evicted first
+     * @param expireAfterWrite how long a loaded or patched customer is served before it is loaded again
+     * @param meterRegistry the registry to publish the hit, load and eviction metrics to
+     */
+    public CustomerInformationCache(CustomerServiceClient customerServiceClient,
+                                    @Value("${customer.cache.maximum-size:10000}") long maximumSize,
+                                    @Value("${customer.cache.expire-after-write:30s}") Duration expireAfterWrite,
+                                    MeterRegistry meterRegistry) {
+        this.customerServiceClient = customerServiceClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "customer-information");
+    }
+
+    /**
+     * Retrieves customer information for the given customer ID, loading it from the customer service on a miss.
+     *
+     * Concurrent misses for the same customer share a single in-flight request. Failed loads are not cached.
+     * A subscriber cancelling does not cancel the shared load for the other subscribers.
+     *
+     * @param customerId the ID of the customer
+     * @return a Mono of `CustomerInformation` containing the customer information
+     */
+    public Mono<CustomerInformation> get(Integer customerId) {
+        return Mono.defer(() -> Mono.fromFuture(this.cache.get(customerId, (id, executor) -> this.customerServiceClient.getCustomerInformation(id).toFuture()), true));
+    }
+
+    /**
+     * Applies a completed trade to the cached customer information.
+     *
+     * The balance is taken from the trade response and the traded quantity is added to or removed from
+     * the holding of the traded ticker. A customer whose information is still loading, failed to load
+     * or cannot be patched is invalidated, so the next read goes to the customer service.
+     * The trade is then published to the subscribers of {@link #trades(Integer)}.
+     *
+     * @param customerId the ID of the customer that traded
+     * @param response the trade result returned by the customer service
+     */
+    public void apply(Integer customerId, StockTradeResponse response) {
+        this.cache.asMap().computeIfPresent(customerId, (id, future) -> {
+            if (!future.isDone() || future.isCompletedExceptionally()) {
+                return null;
+            }
+            var patched = patch(future.join(), response);
+            return Objects.isNull(patched) ? null : CompletableFuture.completedFuture(patched);
+        });
+        this.trades.emitNext(new Trade(customerId, response), Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+    }
+
+    /**
+     * Streams the trades applied to the given customer from now on.
+     *
+     * The stream is hot. Trades are buffered while the subscriber has no outstanding demand, so a slow subscriber
+     * receives every trade applied after it subscribed.
+     *
+     * @param customerId the ID of the customer
+     * @return a Flux of the `StockTradeResponse` of every trade of the customer
+     */
+    public Flux<StockTradeResponse> trades(Integer customerId) {
+        return this.trades.asFlux()
+                .filter(trade -> trade.customerId().equals(customerId))
+                .map(Trade::response)
+                .onBackpressureBuffer();
+    }
+
+    /**
+     * Discards the cached customer information, so the next read goes to the customer service.
+     *
+     * @param customerId the ID of the customer
+     */
+    public void invalidate(Integer customerId) {
+        this.cache.synchronous().invalidate(customerId);
+    }
+
+    private static CustomerInformation patch(CustomerInformation information, StockTradeResponse response) {
+        if (Objects.isNull(information) || Objects.isNull(information.holdings()) || Objects.isNull(response.ticker())
+                || Objects.isNull(response.action()) || Objects.isNull(response.quantity()) || Objects.isNull(response.balance())) {
+            return null;
+        }
+        var delta = response.action() == TradeAction.BUY ? response.quantity() : -response.quantity();
+        var holdings = new ArrayList<Holding>(information.holdings().size() + 1);
+        var found = false;
+        for (var holding : information.holdings()) {
+            if (holding.ticker() == response.ticker()) {
+                holdings.add(new Holding(holding.ticker(), Objects.requireNonNullElse(holding.quantity(), 0) + delta));
+                found = true;
+            } else {
+                holdings.add(holding);
+            }
+        }
+        if (!found) {
+            if (delta < 0) {
+                return null;
+            }
+            holdings.add(new Holding(response.ticker(), delta));
+        }
+        return new CustomerInformation(information.id(), information.name(), response.balance(), holdings);
+    }
+
+    private record Trade(Integer customerId, StockTradeResponse response) {
+    }
+}
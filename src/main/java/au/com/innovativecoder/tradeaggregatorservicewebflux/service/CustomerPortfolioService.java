@@ -1,65 +1,205 @@
 package au.com.innovativecoder.tradeaggregatorservicewebflux.service;
 
 import au.com.innovativecoder.tradeaggregatorservicewebflux.client.CustomerServiceClient;
-import au.com.innovativecoder.tradeaggregatorservicewebflux.client.StockServiceClient;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
 import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.*;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.DeadlineExceededException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.journal.TradeJournal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
 @Service
 public class CustomerPortfolioService {
 
     private static final Logger log = LoggerFactory.getLogger(CustomerPortfolioService.class);
 
-    private final StockServiceClient stockServiceClient;
+    private final LivePriceTable livePriceTable;
     private final CustomerServiceClient customerServiceClient;
+    private final CustomerInformationCache customerInformationCache;
+    private final TradeJournal tradeJournal;
+    private final TradeIdempotencyStore tradeIdempotencyStore;
+    private final Bulkhead batchTradeBulkhead;
+    private final int lookupMaxConcurrency;
+    private final Bulkhead lookupBulkhead;
+    private final Counter unknownOutcomes;
 
     /**
-     * Constructs a new CustomerPortfolioService with the given StockServiceClient and CustomerServiceClient.
+     * Constructs a new CustomerPortfolioService with the given LivePriceTable, CustomerServiceClient, CustomerInformationCache and TradeJournal.
      *
-     * @param stockServiceClient the client to use for stock service requests
+     * @param livePriceTable the table of live prices, falling back to the stock service when stale
      * @param customerServiceClient the client to use for customer service requests
+     * @param customerInformationCache the read-through cache of customer information
+     * @param tradeJournal the journal recording executed trades
+     * @param tradeIdempotencyStore the store deduplicating trades submitted with an idempotency key
+     * @param batchMaxConcurrency the maximum number of batched trades in flight to the customer service across all batches
+     * @param lookupMaxConcurrency the maximum number of bulk lookups in flight to the customer service across all streams
+     * @param meterRegistry the registry to publish the counter of trades with an unknown outcome to
      */
-    public CustomerPortfolioService(StockServiceClient stockServiceClient, CustomerServiceClient customerServiceClient) {
-        this.stockServiceClient = stockServiceClient;
+    public CustomerPortfolioService(LivePriceTable livePriceTable, CustomerServiceClient customerServiceClient, CustomerInformationCache customerInformationCache,
+                                    TradeJournal tradeJournal, TradeIdempotencyStore tradeIdempotencyStore, @Value("${trade.batch.max-concurrency:64}") int batchMaxConcurrency,
+                                    @Value("${customer.lookup.max-concurrency:32}") int lookupMaxConcurrency, MeterRegistry meterRegistry) {
+        this.livePriceTable = livePriceTable;
         this.customerServiceClient = customerServiceClient;
+        this.customerInformationCache = customerInformationCache;
+        this.tradeJournal = tradeJournal;
+        this.tradeIdempotencyStore = tradeIdempotencyStore;
+        this.batchTradeBulkhead = new Bulkhead(batchMaxConcurrency);
+        this.lookupMaxConcurrency = lookupMaxConcurrency;
+        this.lookupBulkhead = new Bulkhead(lookupMaxConcurrency);
+        this.unknownOutcomes = Counter.builder("trade.outcome.unknown")
+                .description("Trades abandoned after they may have been sent to the customer service")
+                .register(meterRegistry);
     }
 
     /**
      * Retrieves customer information for the given customer ID.
      *
-     * This method delegates the request to the CustomerServiceClient.
+     * This method reads through the CustomerInformationCache, which delegates misses to the CustomerServiceClient.
      *
      * @param customerId the ID of the customer
      * @return a Mono of `CustomerInformation` containing the customer information
      */
     public Mono<CustomerInformation> getCustomerInformation(Integer customerId) {
-        return this.customerServiceClient.getCustomerInformation(customerId);
+        return this.customerInformationCache.get(customerId);
+    }
+
+    /**
+     * Retrieves customer information for a stream of customer IDs, emitting each result as soon as its lookup completes.
+     *
+     * Duplicate IDs are looked up once. Lookups read through the CustomerInformationCache and count against a
+     * bulkhead shared by all streams, so a stream of thousands of IDs keeps a bounded number of requests in flight
+     * to the customer service. A failed lookup is mapped to an element instead of failing the stream.
+     *
+     * @param customerIds the IDs of the customers
+     * @param onError the function mapping the ID and error of a failed lookup to the element reporting it
+     * @return a Flux of `CustomerInformation` objects and error elements, in completion order
+     */
+    public Flux<?> getCustomerInformation(Flux<Integer> customerIds, BiFunction<Integer, Throwable, ?> onError) {
+        return customerIds.distinct()
+                .flatMap(customerId -> this.lookupBulkhead.execute(this.customerInformationCache.get(customerId))
+                        .cast(Object.class)
+                        .onErrorResume(ex -> Mono.just(onError.apply(customerId, ex))), this.lookupMaxConcurrency);
     }
 
     /**
      * Executes a stock trade for the given customer ID and trade request.
      *
-     * This method retrieves the current stock price for the given ticker, constructs a StockTradeRequest,
-     * and delegates the trade execution to the CustomerServiceClient.
+     * This method retrieves the current stock price for the given ticker from the live price table, constructs
+     * a StockTradeRequest, and delegates the trade execution to the CustomerServiceClient. The stock service is
+     * only called when the live price is stale or has not been received yet. When the caller bounds the trade by a
+     * deadline in the Reactor context, both downstream calls share its remaining budget.
      *
      * @param customerId the ID of the customer
      * @param tradeRequest the trade request details
      * @return a Mono of `StockTradeResponse` containing the trade result
      */
     public Mono<StockTradeResponse> trade(Integer customerId, TradeRequest tradeRequest) {
-        //First, the method retrieves the current stock price for the ticker symbol specified in the tradeRequest by calling the getStockPrice method of the StockServiceClient:
-        return this.stockServiceClient.getStockPrice(tradeRequest.ticker())
-                // The result of this call is a Mono<StockPriceResponse>, which is a reactive type representing a single asynchronous value.
-                // The method then extracts the price from the StockPriceResponse using the map operator:
-                .map(StockPriceResponse::price)
+        return this.trade(customerId, tradeRequest, this.livePriceTable::price, this::send);
+    }
+
+    /**
+     * Executes a stock trade submitted with an optional idempotency key.
+     *
+     * Without a key this is {@link #trade(Integer, TradeRequest)}. With a key, the trade is executed once per
+     * customer and key, and every further submission of the key gets the result of the first one.
+     *
+     * @param customerId the ID of the customer
+     * @param tradeRequest the trade request details
+     * @param idempotencyKey the idempotency key chosen by the client, or null
+     * @return a Mono of `StockTradeResponse` containing the trade result
+     */
+    public Mono<StockTradeResponse> trade(Integer customerId, TradeRequest tradeRequest, String idempotencyKey) {
+        if (Objects.isNull(idempotencyKey)) {
+            return this.trade(customerId, tradeRequest);
+        }
+        return this.tradeIdempotencyStore.execute(customerId, idempotencyKey, tradeRequest, () -> this.trade(customerId, tradeRequest));
+    }
+
+    /**
+     * Returns a trade function for a batch of trades of the given customer.
+     *
+     * Trades of the batch share stock service price lookups per ticker, and their calls to the customer service
+     * count against a bulkhead shared by all batches. The caller is expected to apply trades one at a time,
+     * so that the customer's trades reach the customer service in order. A trade cancelled while it waits for the
+     * bulkhead was never sent, so it does not have an unknown outcome.
+     *
+     * @param customerId the ID of the customer
+     * @return a function executing a validated trade request of the batch
+     */
+    public Function<TradeRequest, Mono<StockTradeResponse>> batchTrade(Integer customerId) {
+        var prices = this.livePriceTable.batchLookup();
+        return tradeRequest -> this.trade(customerId, tradeRequest, prices,
+                (id, req) -> this.batchTradeBulkhead.execute(this.send(id, req)));
+    }
+
+    private Mono<StockTradeResponse> trade(Integer customerId, TradeRequest tradeRequest, Function<Ticker, Mono<Integer>> prices,
+                                           BiFunction<Integer, StockTradeRequest, Mono<StockTradeResponse>> executor) {
+        //First, the method retrieves the current stock price for the ticker symbol specified in the tradeRequest from the live price table:
+        return prices.apply(tradeRequest.ticker())
                 // Next, the method converts the TradeRequest to a StockTradeRequest by calling the toStockTradeRequest method, passing the extracted price as an argument:
                 .map(price -> this.toStockTradeRequest(tradeRequest, price))
                 // Finally, the method delegates the trade execution to the CustomerServiceClient by calling its trade method, passing the customer ID and the constructed StockTradeRequest.
                 // This is done using the flatMap operator, which allows for asynchronous composition of the resulting Mono:
-                .flatMap(req -> this.customerServiceClient.trade(customerId, req));
+                .flatMap(req -> executor.apply(customerId, req))
+                .doOnNext(response -> this.executed(customerId, response));
+    }
+
+    /**
+     * Records a trade the customer service executed for the given customer.
+     *
+     * @param customerId the ID of the customer
+     * @param response the trade result returned by the customer service
+     */
+    public void executed(Integer customerId, StockTradeResponse response) {
+        // The cached customer information is patched with the trade result, so the next read reflects the new balance and holdings without a refetch:
+        this.customerInformationCache.apply(customerId, response);
+        // The trade is queued for the journal, which writes it off the request thread:
+        this.tradeJournal.append(response);
+    }
+
+    /**
+     * Sends the given trade to the customer service.
+     *
+     * A trade abandoned at its deadline or cancelled once it has been sent may still have been executed by the
+     * customer service, so it is recorded as having an unknown outcome.
+     */
+    private Mono<StockTradeResponse> send(Integer customerId, StockTradeRequest stockTradeRequest) {
+        return this.customerServiceClient.trade(customerId, stockTradeRequest)
+                .doOnError(DeadlineExceededException.class, ex -> this.unknownOutcome(customerId, stockTradeRequest, "deadline exceeded"))
+                .doOnCancel(() -> this.unknownOutcome(customerId, stockTradeRequest, "cancelled"));
+    }
+
+    /**
+     * Records a trade whose outcome is unknown, because it was abandoned after it may have been sent to the customer
+     * service. The cached customer information is discarded, so the next read reflects the trade if it was executed.
+     * Such a trade is not in the trade journal.
+     */
+    private void unknownOutcome(Integer customerId, StockTradeRequest stockTradeRequest, String reason) {
+        this.customerInformationCache.invalidate(customerId);
+        this.unknownOutcomes.increment();
+        log.warn("trade of customer {} has an unknown outcome, it was {} : {}", customerId, reason, stockTradeRequest);
+    }
+
+    /**
+     * Streams the trades of the given customer recorded in the trade journal within the given window, oldest first.
+     *
+     * @param customerId the ID of the customer
+     * @param window how far back to read the journal
+     * @return a Flux of `JournaledTrade` objects
+     */
+    public Flux<JournaledTrade> recentTrades(Integer customerId, Duration window) {
+        return Flux.defer(() -> this.tradeJournal.trades(customerId, System.currentTimeMillis() - window.toMillis(), Long.MAX_VALUE));
     }
 
     /**
@@ -0,0 +1,139 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.service;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.client.StockServiceClient;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockPriceResponse;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceIngestionEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+@Component
+public class LivePriceTable {
+
+    private static final Logger log = LoggerFactory.getLogger(LivePriceTable.class);
+
+    private final StockServiceClient stockServiceClient;
+    private final PriceIngestionEngine priceIngestionEngine;
+    private final long maxStalenessNanos;
+    private final AtomicReferenceArray<Entry> entries = new AtomicReferenceArray<>(Ticker.values().length);
+    private final Counter hits;
+    private final Counter stale;
+    private final Counter fallbacks;
+    private Disposable subscription;
+
+    /**
+     * Constructs a new LivePriceTable fed by the given PriceIngestionEngine.
+     *
+     * @param stockServiceClient the client providing the fallback price lookup
+     * @param priceIngestionEngine the engine providing the price feed
+     * @param maxStaleness the maximum age of a price before it is no longer used for trading
+     * @param meterRegistry the registry to publish the hit, stale and fallback counters to
+     */
+    public LivePriceTable(StockServiceClient stockServiceClient,
+                          PriceIngestionEngine priceIngestionEngine,
+                          @Value("${price.table.max-staleness:5s}") Duration maxStaleness,
+                          MeterRegistry meterRegistry) {
+        this.stockServiceClient = stockServiceClient;
+        this.priceIngestionEngine = priceIngestionEngine;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.hits = meterRegistry.counter("price.table.hit");
+        this.stale = meterRegistry.counter("price.table.stale");
+        this.fallbacks = meterRegistry.counter("price.table.fallback");
+    }
+
+    /**
+     * Subscribes to the price feed so that the table is kept up to date.
+     */
+    @PostConstruct
+    public void start() {
+        this.subscription = this.priceIngestionEngine.updates()
+                .subscribe(this::update, ex -> log.error("price table feed terminated : {}", ex.getMessage()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (Objects.nonNull(this.subscription)) {
+            this.subscription.dispose();
+        }
+    }
+
+    /**
+     * Records the given price update as the latest known price of its ticker.
+     *
+     * The slot for the ticker is replaced with a single volatile write, so readers never block
+     * and always observe a consistent price and receive time pair.
+     *
+     * @param priceUpdate the price update received from the stock service
+     */
+    public void update(PriceUpdate priceUpdate) {
+        if (Objects.isNull(priceUpdate.ticker()) || Objects.isNull(priceUpdate.price())) {
+            return;
+        }
+        this.entries.set(priceUpdate.ticker().ordinal(), new Entry(priceUpdate.price(), System.nanoTime()));
+    }
+
+    /**
+     * Returns the price to trade the given ticker at.
+     *
+     * The live price is used when it was received within the configured staleness bound and the price feed is
+     * still connected. Otherwise the price is retrieved from the stock service.
+     *
+     * @param ticker the ticker symbol of the stock
+     * @return a Mono of the current price
+     */
+    public Mono<Integer> price(Ticker ticker) {
+        return this.price(ticker, this::fetch);
+    }
+
+    /**
+     * Returns a price lookup for a batch of trades.
+     *
+     * Live prices are used exactly like {@link #price(Ticker)}, but stock service lookups are shared by all trades
+     * of the batch for the same ticker, and reused for up to the staleness bound.
+     *
+     * @return a function returning the price to trade a ticker at
+     */
+    public Function<Ticker, Mono<Integer>> batchLookup() {
+        var fallbacks = new ConcurrentHashMap<Ticker, Mono<Integer>>();
+        var ttl = Duration.ofNanos(this.maxStalenessNanos);
+        return ticker -> this.price(ticker, t -> fallbacks.computeIfAbsent(t, k -> this.fetch(k).cache(price -> ttl, ex -> Duration.ZERO, () -> Duration.ZERO)));
+    }
+
+    private Mono<Integer> price(Ticker ticker, Function<Ticker, Mono<Integer>> fallback) {
+        return Mono.defer(() -> {
+            var entry = this.entries.get(ticker.ordinal());
+            if (Objects.nonNull(entry)) {
+                if (System.nanoTime() - entry.receivedAt() <= this.maxStalenessNanos && this.priceIngestionEngine.isConnected()) {
+                    this.hits.increment();
+                    return Mono.just(entry.price());
+                }
+                this.stale.increment();
+            }
+            this.fallbacks.increment();
+            return fallback.apply(ticker);
+        });
+    }
+
+    private Mono<Integer> fetch(Ticker ticker) {
+        return this.stockServiceClient.getStockPrice(ticker)
+                .map(StockPriceResponse::price);
+    }
+
+    private record Entry(Integer price, long receivedAt) {
+    }
+}
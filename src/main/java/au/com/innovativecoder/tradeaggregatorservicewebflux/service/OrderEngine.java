@@ -0,0 +1,325 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.service;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.client.CustomerServiceClient;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.OrderStatus;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.OrderType;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.OrderRequest;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.RestingOrder;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeRequest;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.ApplicationExceptions;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.CustomerNotFoundException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.DownstreamUnavailableException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.InvalidTradeRequestException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceIngestionEngine;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Holds resting limit and stop orders and trades them through the customer service when the price feed crosses
+ * their trigger price.
+ *
+ * <ul>
+ *     <li>a BUY LIMIT or SELL STOP order fires when the price falls to or below its trigger price</li>
+ *     <li>a SELL LIMIT or BUY STOP order fires when the price rises to or above its trigger price</li>
+ * </ul>
+ *
+ * Every ticker keeps one {@link TriggerBook} per direction. Falling orders are keyed by their trigger price and
+ * rising orders by its negation, so in both books the triggered orders are the ones with a key at or above the
+ * (negated) price, and a tick costs O(log n + k) for k triggered orders. Orders are evaluated against ticks received
+ * after they were placed, and trade at the price of the tick that triggered them. Fired trades share a bulkhead.
+ *
+ * A fired order the customer service rejected as overloaded or unavailable was not executed, so it is open again
+ * at once but only booked again after a delay, and then fires on the next tick that crosses its trigger price. While
+ * it is held it can be cancelled, and the customer service is not called again at the tick rate. Every other fired
+ * order, like a cancelled one, is kept with its final status for a fixed time, so the customer can see whether it was
+ * filled or why it failed.
+ */
+@Service
+public class OrderEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderEngine.class);
+
+    private final CustomerServiceClient customerServiceClient;
+    private final CustomerInformationCache customerInformationCache;
+    private final PriceIngestionEngine priceIngestionEngine;
+    private final CustomerPortfolioService customerPortfolioService;
+    private final Bulkhead fireBulkhead;
+    private final Duration rebookDelay;
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<Long, RestingOrder> orders = new ConcurrentHashMap<>();
+    private final Set<Long> held = ConcurrentHashMap.newKeySet();
+    private final Cache<Long, RestingOrder> closed;
+    private final List<Books> books;
+    private final Counter placed;
+    private final Counter cancelled;
+    private final Counter filled;
+    private final Counter failed;
+    private final Counter rebooked;
+    private Disposable subscription;
+
+    /**
+     * Constructs a new OrderEngine.
+     *
+     * @param customerServiceClient the client executing fired trades
+     * @param customerInformationCache the cache checked for the customer when an order is placed, and discarded when a fired trade may have been executed
+     * @param priceIngestionEngine the engine providing the price feed
+     * @param customerPortfolioService the service recording fills like any other executed trade
+     * @param fireMaxConcurrency the maximum number of fired trades in flight to the customer service
+     * @param rebookDelay how long an order the customer service rejected as unavailable is held before it is booked again
+     * @param closedMaximumSize the maximum number of fired and cancelled orders to keep, oldest ones are evicted first
+     * @param closedExpireAfterWrite how long a fired or cancelled order is kept after its status last changed
+     * @param meterRegistry the registry to publish the order metrics to
+     */
+    public OrderEngine(CustomerServiceClient customerServiceClient,
+                       CustomerInformationCache customerInformationCache,
+                       PriceIngestionEngine priceIngestionEngine,
+                       CustomerPortfolioService customerPortfolioService,
+                       @Value("${order.fire.max-concurrency:16}") int fireMaxConcurrency,
+                       @Value("${order.rebook.delay:5s}") Duration rebookDelay,
+                       @Value("${order.closed.maximum-size:100000}") long closedMaximumSize,
+                       @Value("${order.closed.expire-after-write:1h}") Duration closedExpireAfterWrite,
+                       MeterRegistry meterRegistry) {
+        this.customerServiceClient = customerServiceClient;
+        this.customerInformationCache = customerInformationCache;
+        this.priceIngestionEngine = priceIngestionEngine;
+        this.customerPortfolioService = customerPortfolioService;
+        this.fireBulkhead = new Bulkhead(fireMaxConcurrency);
+        this.rebookDelay = rebookDelay;
+        this.closed = Caffeine.newBuilder()
+                .maximumSize(closedMaximumSize)
+                .expireAfterWrite(closedExpireAfterWrite)
+                .build();
+        this.books = Stream.of(Ticker.values()).map(ticker -> new Books()).toList();
+        this.placed = meterRegistry.counter("orders.placed");
+        this.cancelled = meterRegistry.counter("orders.cancelled");
+        this.filled = meterRegistry.counter("orders.fired", "outcome", "filled");
+        this.failed = meterRegistry.counter("orders.fired", "outcome", "failed");
+        this.rebooked = meterRegistry.counter("orders.fired", "outcome", "rebooked");
+        Gauge.builder("orders.open", this.orders, Map::size)
+                .description("Resting orders waiting for their trigger price")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Subscribes to the price feed so that resting orders are matched against every tick.
+     */
+    @PostConstruct
+    public void start() {
+        this.subscription = this.priceIngestionEngine.updates()
+                .subscribe(this::match, ex -> log.error("order engine feed terminated : {}", ex.getMessage()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (Objects.nonNull(this.subscription)) {
+            this.subscription.dispose();
+        }
+    }
+
+    /**
+     * Places a resting order for the given customer.
+     *
+     * @param customerId the ID of the customer
+     * @param orderRequest the validated order request
+     * @return a Mono of the placed order, or a `CustomerNotFoundException` error
+     */
+    public Mono<RestingOrder> place(Integer customerId, OrderRequest orderRequest) {
+        return this.customerInformationCache.get(customerId)
+                .map(customerInformation -> {
+                    var order = new RestingOrder(this.ids.incrementAndGet(), customerId, orderRequest.ticker(), orderRequest.action(),
+                            orderRequest.quantity(), orderRequest.type(), orderRequest.triggerPrice(), OrderStatus.OPEN, null);
+                    var books = this.books.get(order.ticker().ordinal());
+                    synchronized (books) {
+                        this.orders.put(order.id(), order);
+                        books.of(order).add(key(order), order.id());
+                    }
+                    this.placed.increment();
+                    return order;
+                });
+    }
+
+    /**
+     * Returns the orders of the given customer, oldest first.
+     *
+     * Resting orders are returned along with the fired and cancelled orders that are still kept.
+     *
+     * @param customerId the ID of the customer
+     * @return a Flux of `RestingOrder` objects
+     */
+    public Flux<RestingOrder> orders(Integer customerId) {
+        return Flux.defer(() -> Flux.fromStream(Stream.concat(this.orders.values().stream(), this.closed.asMap().values().stream())
+                .filter(order -> order.customer().equals(customerId))
+                .sorted(Comparator.comparing(RestingOrder::id))));
+    }
+
+    /**
+     * Returns an order of the given customer.
+     *
+     * @param customerId the ID of the customer
+     * @param orderId the ID of the order
+     * @return a Mono of the order, or an `OrderNotFoundException` error when the order does not exist, belongs to
+     *         another customer or is no longer kept
+     */
+    public Mono<RestingOrder> order(Integer customerId, Long orderId) {
+        return Mono.defer(() -> {
+            var order = Objects.requireNonNullElseGet(this.orders.get(orderId), () -> this.closed.getIfPresent(orderId));
+            if (Objects.isNull(order) || !order.customer().equals(customerId)) {
+                return ApplicationExceptions.orderNotFound(orderId);
+            }
+            return Mono.just(order);
+        });
+    }
+
+    /**
+     * Cancels a resting order of the given customer.
+     *
+     * @param customerId the ID of the customer
+     * @param orderId the ID of the order
+     * @return a Mono of the cancelled order, or an `OrderNotFoundException` error when the order does not exist,
+     *         belongs to another customer or has already fired
+     */
+    public Mono<RestingOrder> cancel(Integer customerId, Long orderId) {
+        return Mono.defer(() -> {
+            var order = this.orders.get(orderId);
+            if (Objects.isNull(order) || !order.customer().equals(customerId)) {
+                return ApplicationExceptions.orderNotFound(orderId);
+            }
+            var books = this.books.get(order.ticker().ordinal());
+            synchronized (books) {
+                if (!books.of(order).remove(key(order), order.id()) && !this.held.remove(order.id())) {
+                    return ApplicationExceptions.orderNotFound(orderId);
+                }
+                this.orders.remove(order.id());
+            }
+            this.cancelled.increment();
+            var cancelledOrder = order.withStatus(OrderStatus.CANCELLED, null);
+            this.closed.put(order.id(), cancelledOrder);
+            return Mono.just(cancelledOrder);
+        });
+    }
+
+    /**
+     * Removes the orders triggered by the given price update and fires their trades.
+     *
+     * @param priceUpdate the price update received from the stock service
+     */
+    public void match(PriceUpdate priceUpdate) {
+        if (Objects.isNull(priceUpdate.ticker()) || Objects.isNull(priceUpdate.price())) {
+            return;
+        }
+        int price = priceUpdate.price();
+        var books = this.books.get(priceUpdate.ticker().ordinal());
+        var triggered = new ArrayList<RestingOrder>();
+        synchronized (books) {
+            if (books.falling.size() > 0) {
+                books.falling.drainAtOrAbove(price, id -> triggered.add(this.orders.remove(id)));
+            }
+            if (books.rising.size() > 0) {
+                books.rising.drainAtOrAbove(-price, id -> triggered.add(this.orders.remove(id)));
+            }
+        }
+        triggered.forEach(order -> this.fire(order, price));
+    }
+
+    private void fire(RestingOrder order, int price) {
+        var request = new StockTradeRequest(order.ticker(), price, order.quantity(), order.action());
+        this.closed.put(order.id(), order.withStatus(OrderStatus.FIRED, null));
+        this.fireBulkhead.execute(this.customerServiceClient.trade(order.customer(), request))
+                .subscribe(response -> {
+                    this.filled.increment();
+                    this.closed.put(order.id(), order.withStatus(OrderStatus.FILLED, null));
+                    this.customerPortfolioService.executed(order.customer(), response);
+                    log.info("order {} filled at {}", order.id(), price);
+                }, ex -> {
+                    if (ex instanceof DownstreamUnavailableException) {
+                        this.hold(order);
+                        log.warn("order {} held for {}, it was not traded at {} : {}", order.id(), this.rebookDelay, price, ex.getMessage());
+                        return;
+                    }
+                    this.failed.increment();
+                    this.closed.put(order.id(), order.withStatus(OrderStatus.FAILED, reason(ex)));
+                    // The trade may have been executed when it failed for any other reason than a rejection:
+                    if (!(ex instanceof InvalidTradeRequestException) && !(ex instanceof CustomerNotFoundException)) {
+                        this.customerInformationCache.invalidate(order.customer());
+                    }
+                    log.error("order {} failed at {} : {}", order.id(), price, ex.getMessage());
+                });
+    }
+
+    private void hold(RestingOrder order) {
+        var books = this.books.get(order.ticker().ordinal());
+        synchronized (books) {
+            this.orders.put(order.id(), order);
+            this.held.add(order.id());
+        }
+        this.closed.invalidate(order.id());
+        this.rebooked.increment();
+        Mono.delay(this.rebookDelay).subscribe(tick -> this.rebook(order));
+    }
+
+    private void rebook(RestingOrder order) {
+        var books = this.books.get(order.ticker().ordinal());
+        synchronized (books) {
+            // The order is no longer held when it was cancelled in the meantime:
+            if (this.held.remove(order.id())) {
+                books.of(order).add(key(order), order.id());
+            }
+        }
+    }
+
+    /**
+     * Returns the reason a fired order failed, as shown to the customer. Only the messages of rejections by the
+     * customer service are shown, as other errors may describe internals.
+     */
+    private static String reason(Throwable ex) {
+        return switch (ex) {
+            case InvalidTradeRequestException e -> e.getMessage();
+            case CustomerNotFoundException e -> e.getMessage();
+            default -> "The trade could not be executed";
+        };
+    }
+
+    private static boolean fallingTrigger(RestingOrder order) {
+        return (order.type() == OrderType.LIMIT) == (order.action() == TradeAction.BUY);
+    }
+
+    private static int key(RestingOrder order) {
+        return fallingTrigger(order) ? order.triggerPrice() : -order.triggerPrice();
+    }
+
+    private static final class Books {
+
+        private final TriggerBook falling = new TriggerBook();
+        private final TriggerBook rising = new TriggerBook();
+
+        private TriggerBook of(RestingOrder order) {
+            return fallingTrigger(order) ? this.falling : this.rising;
+        }
+    }
+}
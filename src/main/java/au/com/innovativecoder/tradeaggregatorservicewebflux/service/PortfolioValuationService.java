@@ -0,0 +1,180 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.service;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.CustomerInformation;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.Holding;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.HoldingValuation;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PortfolioValuation;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeResponse;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceStreamBroadcaster;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Service
+public class PortfolioValuationService {
+
+    private final CustomerInformationCache customerInformationCache;
+    private final PriceStreamBroadcaster priceStreamBroadcaster;
+    private final LivePriceTable livePriceTable;
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    /**
+     * Constructs a new PortfolioValuationService.
+     *
+     * @param customerInformationCache the cache to read the customer's balance, holdings and trades from
+     * @param priceStreamBroadcaster the broadcaster providing the shared per-ticker price streams
+     * @param livePriceTable the table providing the prices the first valuation is made at
+     * @param meterRegistry the registry to publish the subscriber gauge to
+     */
+    public PortfolioValuationService(CustomerInformationCache customerInformationCache, PriceStreamBroadcaster priceStreamBroadcaster,
+                                     LivePriceTable livePriceTable, MeterRegistry meterRegistry) {
+        this.customerInformationCache = customerInformationCache;
+        this.priceStreamBroadcaster = priceStreamBroadcaster;
+        this.livePriceTable = livePriceTable;
+        Gauge.builder("portfolio.stream.subscribers", this.subscribers, AtomicInteger::get)
+                .description("Subscribers of live portfolio valuation streams")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Streams the market value of the given customer's portfolio as prices move and the customer trades.
+     *
+     * The first element values every holding at its price in the live price table. A holding whose price cannot be
+     * found is valued once its first price update arrives. Every following element is caused by a price update of
+     * one held ticker or by a trade of the customer, and carries the new value of that holding along with the running
+     * totals. Only the tickers the customer holds are subscribed to, and a ticker bought later is subscribed to then.
+     *
+     * The customer's trades are subscribed to and buffered as soon as the customer information is read, so a trade
+     * made while the first valuation looks up prices is applied right after it rather than lost.
+     *
+     * @param customerId the ID of the customer
+     * @return a Flux of `PortfolioValuation` objects
+     */
+    public Flux<PortfolioValuation> valuationStream(Integer customerId) {
+        return this.customerInformationCache.get(customerId)
+                .flatMapMany(customerInformation -> {
+                    var valuation = new RunningValuation(customerInformation);
+                    var buffered = Sinks.many().unicast().<StockTradeResponse>onBackpressureBuffer();
+                    var subscription = this.customerInformationCache.trades(customerId)
+                            .subscribe(buffered::tryEmitNext, buffered::tryEmitError, buffered::tryEmitComplete);
+                    var initial = Flux.fromIterable(valuation.tickers())
+                            .flatMap(ticker -> this.livePriceTable.price(ticker)
+                                    .map(price -> new PriceUpdate(ticker, price, null))
+                                    .onErrorResume(ex -> Mono.empty()))
+                            .doOnNext(valuation::apply)
+                            .then(Mono.fromSupplier(valuation::current));
+                    // Prices and trades arrive on different threads, so they are merged before they are applied:
+                    var prices = Flux.fromIterable(valuation.tickers())
+                            .concatWith(valuation.added())
+                            .flatMap(ticker -> this.priceStreamBroadcaster.updates(List.of(ticker)), Ticker.values().length)
+                            .filter(priceUpdate -> Objects.nonNull(priceUpdate.price()))
+                            .map(priceUpdate -> (Supplier<PortfolioValuation>) () -> valuation.apply(priceUpdate));
+                    var trades = buffered.asFlux()
+                            .filter(RunningValuation::applicable)
+                            .map(response -> (Supplier<PortfolioValuation>) () -> valuation.apply(response));
+                    return initial.concatWith(Flux.merge(prices, trades).map(Supplier::get))
+                            .doFinally(signal -> subscription.dispose());
+                })
+                .doOnSubscribe(subscription -> this.subscribers.incrementAndGet())
+                .doFinally(signal -> this.subscribers.decrementAndGet());
+    }
+
+    /**
+     * The valuation of one portfolio, updated with the delta of a single holding per price update or trade.
+     *
+     * Instances are confined to a single subscriber and are not thread-safe.
+     */
+    private static final class RunningValuation {
+
+        private final Integer customer;
+        private final int[] quantities = new int[Ticker.values().length];
+        private final Integer[] prices = new Integer[Ticker.values().length];
+        private final long[] values = new long[Ticker.values().length];
+        private final List<Ticker> tickers = new ArrayList<>();
+        private final Sinks.Many<Ticker> added = Sinks.many().unicast().onBackpressureBuffer();
+        private Integer balance;
+        private long marketValue;
+
+        private RunningValuation(CustomerInformation customerInformation) {
+            this.customer = customerInformation.id();
+            this.balance = Objects.requireNonNullElse(customerInformation.balance(), 0);
+            for (var holding : Objects.requireNonNullElse(customerInformation.holdings(), List.<Holding>of())) {
+                if (Objects.isNull(holding.ticker()) || Objects.isNull(holding.quantity()) || holding.quantity() == 0) {
+                    continue;
+                }
+                if (this.quantities[holding.ticker().ordinal()] == 0) {
+                    this.tickers.add(holding.ticker());
+                }
+                this.quantities[holding.ticker().ordinal()] += holding.quantity();
+            }
+        }
+
+        private static boolean applicable(StockTradeResponse response) {
+            return Objects.nonNull(response.ticker()) && Objects.nonNull(response.action())
+                    && Objects.nonNull(response.quantity()) && Objects.nonNull(response.balance());
+        }
+
+        /**
+         * Returns the tickers held when the stream started.
+         */
+        private List<Ticker> tickers() {
+            return List.copyOf(this.tickers);
+        }
+
+        /**
+         * Returns the tickers first bought after the stream started.
+         */
+        private Flux<Ticker> added() {
+            return this.added.asFlux();
+        }
+
+        private PortfolioValuation current() {
+            return this.valuation(null);
+        }
+
+        private PortfolioValuation apply(PriceUpdate priceUpdate) {
+            var index = priceUpdate.ticker().ordinal();
+            this.prices[index] = priceUpdate.price();
+            return this.revalue(priceUpdate.ticker());
+        }
+
+        private PortfolioValuation apply(StockTradeResponse response) {
+            var index = response.ticker().ordinal();
+            this.balance = response.balance();
+            this.quantities[index] += response.action() == TradeAction.BUY ? response.quantity() : -response.quantity();
+            if (Objects.nonNull(response.price())) {
+                this.prices[index] = response.price();
+            }
+            if (!this.tickers.contains(response.ticker())) {
+                this.tickers.add(response.ticker());
+                this.added.tryEmitNext(response.ticker());
+            }
+            return this.revalue(response.ticker());
+        }
+
+        private PortfolioValuation revalue(Ticker ticker) {
+            var index = ticker.ordinal();
+            var price = this.prices[index];
+            var value = Objects.isNull(price) ? 0 : (long) this.quantities[index] * price;
+            this.marketValue += value - this.values[index];
+            this.values[index] = value;
+            return this.valuation(new HoldingValuation(ticker, this.quantities[index], price, value));
+        }
+
+        private PortfolioValuation valuation(HoldingValuation holding) {
+            return new PortfolioValuation(this.customer, this.balance, this.marketValue, this.balance + this.marketValue, holding);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.service;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.client.CustomerServiceClient;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.client.StockServiceClient;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceIngestionEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Optionally warms the instance up before it reports itself ready to accept traffic.
+ *
+ * The warm-up opens connections of the customer and stock service pools with concurrent lookups, primes the live
+ * price table with the current price of every ticker, and waits for the first update of the price stream. It runs
+ * as an application runner, so the readiness state is only changed to accepting traffic once it is done. A warm-up
+ * that does not complete within its timeout is abandoned with a warning, and the instance reports ready anyway.
+ *
+ * The switch is read at runtime rather than through a condition, so that it still applies to an AOT-processed
+ * application, whose conditions are evaluated at build time.
+ */
+@Component
+public class StartupWarmUp implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmUp.class);
+    private static final Ticker[] TICKERS = Ticker.values();
+
+    private final StockServiceClient stockServiceClient;
+    private final CustomerServiceClient customerServiceClient;
+    private final PriceIngestionEngine priceIngestionEngine;
+    private final LivePriceTable livePriceTable;
+    private final boolean enabled;
+    private final Duration timeout;
+    private final int connections;
+    private final Integer customerId;
+
+    /**
+     * Constructs a new StartupWarmUp.
+     *
+     * @param stockServiceClient the client to prime the prices with
+     * @param customerServiceClient the client to open the customer service connections with
+     * @param priceIngestionEngine the engine whose first price update is waited for
+     * @param livePriceTable the table to prime with the current prices
+     * @param enabled whether the warm-up runs at all
+     * @param timeout how long the warm-up may delay readiness
+     * @param connections the number of concurrent lookups sent to each service, and so of connections opened
+     * @param customerId the customer looked up to open the customer service connections, which need not exist
+     */
+    public StartupWarmUp(StockServiceClient stockServiceClient,
+                         CustomerServiceClient customerServiceClient,
+                         PriceIngestionEngine priceIngestionEngine,
+                         LivePriceTable livePriceTable,
+                         @Value("${startup.warm-up.enabled:false}") boolean enabled,
+                         @Value("${startup.warm-up.timeout:10s}") Duration timeout,
+                         @Value("${startup.warm-up.connections:4}") int connections,
+                         @Value("${startup.warm-up.customer-id:1}") Integer customerId) {
+        this.stockServiceClient = stockServiceClient;
+        this.customerServiceClient = customerServiceClient;
+        this.priceIngestionEngine = priceIngestionEngine;
+        this.livePriceTable = livePriceTable;
+        this.enabled = enabled;
+        this.timeout = timeout;
+        this.connections = connections;
+        this.customerId = customerId;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!this.enabled) {
+            return;
+        }
+        var start = System.nanoTime();
+        Mono.when(this.primePrices(), this.openCustomerServiceConnections(), this.awaitPriceStream())
+                .timeout(this.timeout, Mono.fromRunnable(() -> log.warn("warm-up did not complete within {}", this.timeout)))
+                .block();
+        log.info("warm-up completed in {} ms", Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    /**
+     * Looks every ticker up at least once, and as many lookups as connections at the same time.
+     */
+    private Mono<Void> primePrices() {
+        return Flux.range(0, Math.max(this.connections, TICKERS.length))
+                .map(i -> TICKERS[i % TICKERS.length])
+                .flatMap(ticker -> this.stockServiceClient.getStockPrice(ticker)
+                        .doOnNext(response -> this.livePriceTable.update(new PriceUpdate(ticker, response.price(), LocalDateTime.now())))
+                        .onErrorResume(ex -> {
+                            log.warn("warm-up price lookup of {} failed : {}", ticker, ex.getMessage());
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    private Mono<Void> openCustomerServiceConnections() {
+        return Flux.range(0, this.connections)
+                .flatMap(i -> this.customerServiceClient.getCustomerInformation(this.customerId)
+                        .onErrorResume(ex -> Mono.empty()))
+                .then();
+    }
+
+    private Mono<Void> awaitPriceStream() {
+        return this.priceIngestionEngine.updates()
+                .next()
+                .then();
+    }
+}
@@ -0,0 +1,105 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.service;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeResponse;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.TradeRequest;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.ApplicationExceptions;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.DownstreamUnavailableException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.Deadline;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates trades submitted with the same `Idempotency-Key` by the same customer.
+ *
+ * The first submission of a key runs the trade and stores it as a cached Mono, so a concurrent duplicate attaches
+ * to the trade in flight and a later one gets the stored response or error without reaching the customer service.
+ * The trade runs to completion even when the submitting request is cancelled. It runs without the deadline of the
+ * submitting request, which only bounds how long that request waits for it, so a retry after a timeout attaches to
+ * the trade still in flight and receives its real outcome. A trade rejected before it was sent to the customer
+ * service, because the service was overloaded or unavailable, is not stored, so a retry runs it.
+ *
+ * The store is bounded by an estimate of the memory its entries use and expires them a fixed time after they
+ * were created. A key reused for a different trade request is rejected.
+ */
+@Component
+public class TradeIdempotencyStore {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+    private final Cache<Key, Entry> cache;
+
+    /**
+     * Constructs a new TradeIdempotencyStore.
+     *
+     * @param maxMemory the estimated memory the stored trades may use, least recently used ones are evicted first
+     * @param expireAfterWrite how long a trade is kept after it was first submitted
+     * @param meterRegistry the registry to publish the hit, miss and eviction metrics to
+     */
+    public TradeIdempotencyStore(@Value("${trade.idempotency.max-memory:16MB}") DataSize maxMemory,
+                                 @Value("${trade.idempotency.expire-after-write:1h}") Duration expireAfterWrite,
+                                 MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .<Key, Entry>weigher((key, entry) -> ENTRY_OVERHEAD_BYTES + 2 * key.idempotencyKey().length())
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "trade-idempotency");
+    }
+
+    /**
+     * Runs the given trade once per customer and idempotency key.
+     *
+     * @param customerId the ID of the customer
+     * @param idempotencyKey the idempotency key the trade was submitted with
+     * @param tradeRequest the trade request, which has to be the same for every submission of the key
+     * @param trade the trade to run on the first submission
+     * @return a Mono of the result of the first submission
+     */
+    public Mono<StockTradeResponse> execute(Integer customerId, String idempotencyKey, TradeRequest tradeRequest, Supplier<Mono<StockTradeResponse>> trade) {
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return ApplicationExceptions.invalidIdempotencyKey(MAX_KEY_LENGTH);
+        }
+        return Mono.defer(() -> {
+            var key = new Key(customerId, idempotencyKey);
+            var entry = this.cache.get(key, k -> new Entry(tradeRequest));
+            if (!entry.tradeRequest.equals(tradeRequest)) {
+                return ApplicationExceptions.idempotencyKeyReused(idempotencyKey);
+            }
+            return entry.response(() -> trade.get()
+                    .doOnError(DownstreamUnavailableException.class, ex -> this.cache.asMap().remove(key, entry))
+                    .contextWrite(context -> context.delete(Deadline.class)));
+        });
+    }
+
+    private record Key(Integer customerId, String idempotencyKey) {
+    }
+
+    private static final class Entry {
+
+        private final TradeRequest tradeRequest;
+        private Mono<StockTradeResponse> response;
+
+        private Entry(TradeRequest tradeRequest) {
+            this.tradeRequest = tradeRequest;
+        }
+
+        private synchronized Mono<StockTradeResponse> response(Supplier<Mono<StockTradeResponse>> trade) {
+            if (this.response == null) {
+                this.response = trade.get().cache();
+            }
+            return this.response;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.service;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Order ids sorted by an int trigger key, kept in parallel primitive arrays.
+ *
+ * Triggered entries are always the ones with the highest keys, so they are found with a binary search and removed
+ * by truncating the arrays: draining k entries out of n costs O(log n + k). Adding and removing a single entry
+ * shift the arrays. Entries with the same key keep their insertion order.
+ *
+ * Instances are not thread-safe.
+ */
+final class TriggerBook {
+
+    private int[] keys = new int[16];
+    private long[] ids = new long[16];
+    private int size;
+
+    int size() {
+        return this.size;
+    }
+
+    void add(int key, long id) {
+        if (this.size == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, this.size * 2);
+            this.ids = Arrays.copyOf(this.ids, this.size * 2);
+        }
+        var index = this.firstIndexAbove(key);
+        System.arraycopy(this.keys, index, this.keys, index + 1, this.size - index);
+        System.arraycopy(this.ids, index, this.ids, index + 1, this.size - index);
+        this.keys[index] = key;
+        this.ids[index] = id;
+        this.size++;
+    }
+
+    boolean remove(int key, long id) {
+        for (int i = this.firstIndexAtOrAbove(key); i < this.size && this.keys[i] == key; i++) {
+            if (this.ids[i] == id) {
+                System.arraycopy(this.keys, i + 1, this.keys, i, this.size - i - 1);
+                System.arraycopy(this.ids, i + 1, this.ids, i, this.size - i - 1);
+                this.size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes every entry with a key at or above the given threshold and passes its id to the given consumer.
+     */
+    void drainAtOrAbove(int threshold, LongConsumer consumer) {
+        var from = this.firstIndexAtOrAbove(threshold);
+        for (int i = from; i < this.size; i++) {
+            consumer.accept(this.ids[i]);
+        }
+        this.size = from;
+    }
+
+    private int firstIndexAtOrAbove(int key) {
+        var low = 0;
+        var high = this.size;
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (this.keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstIndexAbove(int key) {
+        return key == Integer.MAX_VALUE ? this.size : this.firstIndexAtOrAbove(key + 1);
+    }
+}
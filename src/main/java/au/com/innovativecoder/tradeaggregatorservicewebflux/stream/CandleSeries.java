@@ -0,0 +1,87 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.stream;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The latest OHLC candles of one ticker for one interval, kept in parallel primitive arrays of fixed capacity.
+ *
+ * Every tick updates the open candle in place, or opens the next one when it falls into a later interval, so
+ * reading candles never scans ticks. A tick older than the open candle is ignored; {@link TickHistory} drops late
+ * ticks before they reach the series, so that candles and ticks always agree. There is a single writer; readers
+ * copy under a read lock.
+ */
+final class CandleSeries {
+
+    private final long intervalMillis;
+    private final long[] starts;
+    private final int[] opens;
+    private final int[] highs;
+    private final int[] lows;
+    private final int[] closes;
+    private final int[] ticks;
+    private final StampedLock lock = new StampedLock();
+    private long count;
+
+    CandleSeries(long intervalMillis, int capacity) {
+        this.intervalMillis = intervalMillis;
+        this.starts = new long[capacity];
+        this.opens = new int[capacity];
+        this.highs = new int[capacity];
+        this.lows = new int[capacity];
+        this.closes = new int[capacity];
+        this.ticks = new int[capacity];
+    }
+
+    int capacity() {
+        return this.starts.length;
+    }
+
+    void apply(long time, int price) {
+        var start = time - Math.floorMod(time, this.intervalMillis);
+        var stamp = this.lock.writeLock();
+        try {
+            var current = (int) ((this.count - 1) % this.starts.length);
+            if (this.count > 0 && start == this.starts[current]) {
+                this.highs[current] = Math.max(this.highs[current], price);
+                this.lows[current] = Math.min(this.lows[current], price);
+                this.closes[current] = price;
+                this.ticks[current]++;
+            } else if (this.count == 0 || start > this.starts[current]) {
+                var next = (int) (this.count % this.starts.length);
+                this.starts[next] = start;
+                this.opens[next] = price;
+                this.highs[next] = price;
+                this.lows[next] = price;
+                this.closes[next] = price;
+                this.ticks[next] = 1;
+                this.count++;
+            }
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Visits up to the given number of the latest candles, oldest first, while holding the read lock.
+     *
+     * @return the number of candles visited
+     */
+    int forEachLatest(int limit, CandleVisitor visitor) {
+        var stamp = this.lock.readLock();
+        try {
+            var n = (int) Math.min(Math.min(limit, this.count), this.starts.length);
+            for (int i = 0; i < n; i++) {
+                var index = (int) ((this.count - n + i) % this.starts.length);
+                visitor.visit(this.starts[index], this.opens[index], this.highs[index], this.lows[index], this.closes[index], this.ticks[index]);
+            }
+            return n;
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    @FunctionalInterface
+    interface CandleVisitor {
+        void visit(long start, int open, int high, int low, int close, int ticks);
+    }
+}
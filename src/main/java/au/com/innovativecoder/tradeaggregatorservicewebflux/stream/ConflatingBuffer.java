@@ -0,0 +1,121 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.util.concurrent.Queues;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ToIntFunction;
+
+/**
+ * A per-subscriber buffer that keeps only the latest element per key.
+ *
+ * The source is consumed without backpressure. While the subscriber has no outstanding demand,
+ * a newer element replaces the pending element with the same key, so a slow subscriber skips
+ * stale elements instead of queueing them. Memory is bounded by the number of keys.
+ *
+ * @param <T> the type of the buffered elements
+ */
+public final class ConflatingBuffer<T> {
+
+    private final FluxSink<T> sink;
+    private final ToIntFunction<T> keyOf;
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLongArray pendingSince;
+    private final Queue<Integer> pending;
+    private final AtomicInteger wip = new AtomicInteger();
+    private final Counter conflated;
+    private final Timer lag;
+    private volatile boolean done;
+    private Throwable error;
+
+    private ConflatingBuffer(FluxSink<T> sink, int keys, ToIntFunction<T> keyOf, Counter conflated, Timer lag) {
+        this.sink = sink;
+        this.keyOf = keyOf;
+        this.slots = new AtomicReferenceArray<>(keys);
+        this.pendingSince = new AtomicLongArray(keys);
+        this.pending = Queues.<Integer>get(keys).get();
+        this.conflated = conflated;
+        this.lag = lag;
+    }
+
+    /**
+     * Conflates the given source per key for a single subscriber.
+     *
+     * @param source the source to conflate
+     * @param keys the number of distinct keys
+     * @param keyOf the function returning the key of an element, between 0 and keys - 1
+     * @param conflated the counter incremented for every element replaced before it was delivered
+     * @param lag the timer recording how long a key waited between becoming pending and being delivered
+     * @param <T> the type of the elements
+     * @return a Flux delivering the latest element per key as demand allows
+     */
+    public static <T> Flux<T> conflate(Flux<T> source, int keys, ToIntFunction<T> keyOf, Counter conflated, Timer lag) {
+        return Flux.create(sink -> {
+            var buffer = new ConflatingBuffer<>(sink, keys, keyOf, conflated, lag);
+            sink.onRequest(n -> buffer.drain());
+            sink.onDispose(source.subscribe(buffer::offer, buffer::error, buffer::complete));
+        });
+    }
+
+    private void offer(T element) {
+        var key = this.keyOf.applyAsInt(element);
+        if (Objects.isNull(this.slots.get(key))) {
+            this.pendingSince.set(key, System.nanoTime());
+        }
+        if (Objects.isNull(this.slots.getAndSet(key, element))) {
+            this.pending.offer(key);
+        } else {
+            this.conflated.increment();
+        }
+        this.drain();
+    }
+
+    private void error(Throwable error) {
+        this.error = error;
+        this.done = true;
+        this.drain();
+    }
+
+    private void complete() {
+        this.done = true;
+        this.drain();
+    }
+
+    private void drain() {
+        if (this.wip.getAndIncrement() != 0) {
+            return;
+        }
+        var missed = 1;
+        for (;;) {
+            while (this.sink.requestedFromDownstream() > 0 && !this.sink.isCancelled()) {
+                var key = this.pending.poll();
+                if (Objects.isNull(key)) {
+                    break;
+                }
+                var element = this.slots.getAndSet(key, null);
+                this.lag.record(System.nanoTime() - this.pendingSince.get(key), TimeUnit.NANOSECONDS);
+                this.sink.next(element);
+            }
+            if (this.done && this.pending.isEmpty()) {
+                if (Objects.nonNull(this.error)) {
+                    this.sink.error(this.error);
+                } else {
+                    this.sink.complete();
+                }
+                return;
+            }
+            missed = this.wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+}
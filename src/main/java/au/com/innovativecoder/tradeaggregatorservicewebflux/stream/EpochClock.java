@@ -0,0 +1,45 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.stream;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Converts the local date-times of the price feed to and from epoch milliseconds.
+ *
+ * `PriceUpdate.time` is a local date-time in the zone shared with the stock service. Converting it to epoch
+ * milliseconds uses a cached offset of that zone, refreshed once a minute, so the conversion does not allocate.
+ */
+final class EpochClock {
+
+    private static final long OFFSET_REFRESH_MILLIS = 60_000;
+
+    private final ZoneId zone;
+    private volatile ZoneOffset offset;
+    private volatile long offsetExpiresAt;
+
+    EpochClock(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    long toEpochMillis(LocalDateTime time) {
+        return time.toEpochSecond(this.offset(this.now())) * 1000 + time.getNano() / 1_000_000;
+    }
+
+    LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), this.zone);
+    }
+
+    private ZoneOffset offset(long now) {
+        if (now >= this.offsetExpiresAt) {
+            this.offset = this.zone.getRules().getOffset(Instant.ofEpochMilli(now));
+            this.offsetExpiresAt = now + OFFSET_REFRESH_MILLIS;
+        }
+        return this.offset;
+    }
+}
@@ -0,0 +1,35 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.stream;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the time between the stock service stamping a price update and the update being emitted to a subscriber.
+ *
+ * Recording a sample does not allocate.
+ */
+final class FeedLag {
+
+    private final Timer timer;
+    private final EpochClock clock;
+
+    FeedLag(MeterRegistry meterRegistry, EpochClock clock) {
+        this.clock = clock;
+        this.timer = Timer.builder("price.stream.feed.lag")
+                .description("Time from a price update being stamped by the stock service to it being emitted to a subscriber")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    void record(PriceUpdate priceUpdate) {
+        var time = priceUpdate.time();
+        if (Objects.isNull(time)) {
+            return;
+        }
+        this.timer.record(Math.max(0, this.clock.now() - this.clock.toEpochMillis(time)), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,132 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.stream;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Encodes the price updates of the tickers one WebSocket client subscribed to as compact binary frames.
+ *
+ * A keyframe carries a base time in epoch milliseconds followed by the full price of every subscribed ticker:
+ * <pre>
+ * 0x00 | base time (int64) | count (uint8) | count x (ticker ordinal (uint8) | price (varint))
+ * </pre>
+ * A delta frame carries one price update relative to the last price sent for the ticker, or to 0 when none was
+ * sent yet, and to the base time of the last keyframe:
+ * <pre>
+ * 0x01 | ticker ordinal (uint8) | price delta (varint) | time offset in milliseconds (varint)
+ * </pre>
+ * Varints are zig-zag encoded base 128 varints, as in Protocol Buffers. A typical delta frame is 4 to 7 bytes.
+ *
+ * Instances are confined to a single connection and are not thread-safe.
+ */
+public final class PriceDeltaEncoder {
+
+    public static final byte KEYFRAME = 0x00;
+    public static final byte DELTA = 0x01;
+
+    private static final int TICKERS = Ticker.values().length;
+
+    private final EpochClock clock = new EpochClock(ZoneId.systemDefault());
+    private final boolean[] subscribed = new boolean[TICKERS];
+    private final boolean[] known = new boolean[TICKERS];
+    private final int[] latest = new int[TICKERS];
+    private final int[] sent = new int[TICKERS];
+    private final byte[] buffer = new byte[1 + 8 + 1 + TICKERS * 6];
+    private long baseTime;
+    private int position;
+
+    public void subscribe(Collection<Ticker> tickers) {
+        tickers.forEach(ticker -> this.subscribed[ticker.ordinal()] = true);
+    }
+
+    public void unsubscribe(Collection<Ticker> tickers) {
+        tickers.forEach(ticker -> this.subscribed[ticker.ordinal()] = false);
+    }
+
+    public boolean isSubscribed(Ticker ticker) {
+        return this.subscribed[ticker.ordinal()];
+    }
+
+    /**
+     * Records the given price update as the latest known price of its ticker, for the next keyframe.
+     *
+     * @param priceUpdate the price update to record
+     * @return true when the update carries a ticker and a price and was recorded
+     */
+    public boolean record(PriceUpdate priceUpdate) {
+        if (Objects.isNull(priceUpdate.ticker()) || Objects.isNull(priceUpdate.price())) {
+            return false;
+        }
+        var index = priceUpdate.ticker().ordinal();
+        this.latest[index] = priceUpdate.price();
+        this.known[index] = true;
+        return true;
+    }
+
+    /**
+     * Records the given price update and encodes it as a delta frame when its ticker is subscribed.
+     *
+     * @param priceUpdate the price update to encode
+     * @return the encoded delta frame, or null when the ticker is not subscribed or the update carries no price
+     */
+    public byte[] delta(PriceUpdate priceUpdate) {
+        if (!this.record(priceUpdate)) {
+            return null;
+        }
+        var index = priceUpdate.ticker().ordinal();
+        int price = priceUpdate.price();
+        if (!this.subscribed[index]) {
+            return null;
+        }
+        var time = Objects.isNull(priceUpdate.time()) ? this.clock.now() : this.clock.toEpochMillis(priceUpdate.time());
+        this.position = 0;
+        this.buffer[this.position++] = DELTA;
+        this.buffer[this.position++] = (byte) index;
+        this.writeVarint(price - this.sent[index]);
+        this.writeVarint(time - this.baseTime);
+        this.sent[index] = price;
+        return Arrays.copyOf(this.buffer, this.position);
+    }
+
+    /**
+     * Encodes a keyframe with the latest known price of every subscribed ticker and makes it the new base of the
+     * following delta frames.
+     *
+     * @return the encoded keyframe
+     */
+    public byte[] keyframe() {
+        this.baseTime = this.clock.now();
+        this.position = 0;
+        this.buffer[this.position++] = KEYFRAME;
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            this.buffer[this.position++] = (byte) (this.baseTime >>> shift);
+        }
+        var countAt = this.position++;
+        var count = 0;
+        for (int i = 0; i < TICKERS; i++) {
+            this.sent[i] = 0;
+            if (this.subscribed[i] && this.known[i]) {
+                this.buffer[this.position++] = (byte) i;
+                this.writeVarint(this.latest[i]);
+                this.sent[i] = this.latest[i];
+                count++;
+            }
+        }
+        this.buffer[countAt] = (byte) count;
+        return Arrays.copyOf(this.buffer, this.position);
+    }
+
+    private void writeVarint(long value) {
+        var zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            this.buffer[this.position++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        this.buffer[this.position++] = (byte) zigzag;
+    }
+}
@@ -0,0 +1,29 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.stream;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the upstream price feed as down while it is disconnected or silent for too long.
+ */
+@Component("priceFeed")
+public class PriceFeedHealthIndicator extends AbstractHealthIndicator {
+
+    private final PriceIngestionEngine priceIngestionEngine;
+
+    public PriceFeedHealthIndicator(PriceIngestionEngine priceIngestionEngine) {
+        this.priceIngestionEngine = priceIngestionEngine;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        if (this.priceIngestionEngine.isStale()) {
+            builder.down();
+        } else {
+            builder.up();
+        }
+        builder.withDetail("connected", this.priceIngestionEngine.isConnected())
+                .withDetail("sinceLastUpdate", this.priceIngestionEngine.sinceLastUpdate().toString());
+    }
+}
@@ -0,0 +1,21 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.stream;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+
+/**
+ * A price update encoded once as a complete server-sent event frame.
+ *
+ * The bytes are shared by every subscriber and must not be modified.
+ *
+ * @param id the event id, the epoch of the broadcaster that encoded the frame followed by its sequence
+ * @param sequence the sequence of the price update within the epoch
+ * @param update the price update that was encoded
+ * @param bytes the UTF-8 encoded server-sent event frame
+ */
+public record PriceFrame(String id, long sequence, PriceUpdate update, byte[] bytes) {
+
+    public Ticker ticker() {
+        return this.update.ticker();
+    }
+}
@@ -0,0 +1,166 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.stream;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.client.StockServiceClient;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Owns the single upstream connection to the price stream of the stock service.
+ *
+ * The connection is opened once at startup and reopened whenever it fails or ends, with a jittered exponential
+ * backoff that never gives up and starts over once updates flow again. Every ticker has a hot sub-stream that
+ * replays its latest price, so a new subscriber receives the current price of every ticker at once and then
+ * follows the live feed.
+ */
+@Component
+public class PriceIngestionEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceIngestionEngine.class);
+
+    private final StockServiceClient stockServiceClient;
+    private final Duration minBackoff;
+    private final Duration maxBackoff;
+    private final long maxSilenceNanos;
+    private final List<Sinks.Many<PriceUpdate>> tickerSinks;
+    private final Flux<PriceUpdate> updates;
+    private final Counter reconnects;
+    private volatile boolean connected;
+    private volatile long lastUpdateAt;
+    private Disposable subscription;
+
+    /**
+     * Constructs a new PriceIngestionEngine.
+     *
+     * @param stockServiceClient the client opening the upstream price stream
+     * @param minBackoff the delay before the first reconnect attempt after a failure
+     * @param maxBackoff the upper bound of the delay between reconnect attempts
+     * @param maxSilence how long the feed may go without an update before it is reported stale
+     * @param meterRegistry the registry to publish the reconnect counter and the staleness gauge to
+     */
+    public PriceIngestionEngine(StockServiceClient stockServiceClient,
+                                @Value("${price.feed.reconnect.min-backoff:100ms}") Duration minBackoff,
+                                @Value("${price.feed.reconnect.max-backoff:10s}") Duration maxBackoff,
+                                @Value("${price.feed.max-silence:10s}") Duration maxSilence,
+                                MeterRegistry meterRegistry) {
+        this.stockServiceClient = stockServiceClient;
+        this.minBackoff = minBackoff;
+        this.maxBackoff = maxBackoff;
+        this.maxSilenceNanos = maxSilence.toNanos();
+        this.lastUpdateAt = System.nanoTime();
+        this.tickerSinks = Stream.of(Ticker.values())
+                .map(ticker -> Sinks.many().replay().<PriceUpdate>latest())
+                .toList();
+        this.updates = Flux.merge(this.tickerSinks.stream().map(Sinks.Many::asFlux).toList());
+        this.reconnects = Counter.builder("stock.service.price-stream.reconnects")
+                .description("Reconnects of the upstream price stream")
+                .register(meterRegistry);
+        Gauge.builder("price.feed.staleness", this, engine -> engine.sinceLastUpdate().toMillis() / 1000.0)
+                .description("Seconds since the last price update was received")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens the upstream connection.
+     */
+    @PostConstruct
+    public void start() {
+        this.subscription = Flux.defer(() -> this.stockServiceClient.priceUpdates()
+                        // An upstream that ends normally is reconnected to like one that failed.
+                        .concatWith(Mono.error(() -> new IllegalStateException("stock service price stream completed"))))
+                .doOnError(ex -> this.connected = false)
+                .retryWhen(this.retry())
+                .subscribe(this::publish);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (Objects.nonNull(this.subscription)) {
+            this.subscription.dispose();
+        }
+        this.connected = false;
+    }
+
+    /**
+     * Returns the live price updates of all tickers, starting with the latest known price of every ticker.
+     *
+     * @return a Flux of `PriceUpdate` objects
+     */
+    public Flux<PriceUpdate> updates() {
+        return this.updates;
+    }
+
+    /**
+     * Returns whether updates have been received on the current upstream connection.
+     *
+     * @return true while the upstream connection is delivering updates
+     */
+    public boolean isConnected() {
+        return this.connected;
+    }
+
+    /**
+     * Returns the time since the last price update was received, or since startup when none was received yet.
+     *
+     * @return the time since the last price update
+     */
+    public Duration sinceLastUpdate() {
+        return Duration.ofNanos(System.nanoTime() - this.lastUpdateAt);
+    }
+
+    /**
+     * Returns whether the feed is stale, that is disconnected or silent for longer than the configured bound.
+     *
+     * @return true when the latest prices cannot be relied on
+     */
+    public boolean isStale() {
+        return !this.connected || System.nanoTime() - this.lastUpdateAt > this.maxSilenceNanos;
+    }
+
+    /**
+     * Routes an update to the sub-stream of its ticker. Updates arrive one at a time from the single upstream
+     * subscription, so the sinks are never emitted to concurrently.
+     */
+    private void publish(PriceUpdate priceUpdate) {
+        this.connected = true;
+        this.lastUpdateAt = System.nanoTime();
+        if (Objects.isNull(priceUpdate.ticker())) {
+            return;
+        }
+        this.tickerSinks.get(priceUpdate.ticker().ordinal()).tryEmitNext(priceUpdate);
+    }
+
+    /**
+     * Retries forever with a jittered exponential backoff between the configured bounds. The backoff starts over
+     * once a connection has delivered updates, so a brief outage after a long healthy run reconnects quickly.
+     */
+    private Retry retry() {
+        return Retry.backoff(Long.MAX_VALUE, this.minBackoff)
+                .maxBackoff(this.maxBackoff)
+                .jitter(0.5)
+                .transientErrors(true)
+                .doBeforeRetry(rs -> {
+                    this.reconnects.increment();
+                    log.error("stock service price stream failed. reconnect attempt {} : {}", rs.totalRetriesInARow() + 1, rs.failure().getMessage());
+                });
+    }
+}
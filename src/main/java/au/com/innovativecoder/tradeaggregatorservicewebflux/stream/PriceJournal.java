@@ -0,0 +1,57 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.stream;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The latest encoded price frames of all tickers in sequence order, kept in a ring of fixed capacity.
+ *
+ * Reconnecting subscribers are replayed from the journal when every frame after their last seen sequence is
+ * still in it.
+ */
+final class PriceJournal {
+
+    private final PriceFrame[] frames;
+    private long count;
+
+    PriceJournal(int capacity) {
+        this.frames = new PriceFrame[capacity];
+    }
+
+    synchronized void append(PriceFrame frame) {
+        this.frames[(int) (this.count % this.frames.length)] = frame;
+        this.count++;
+    }
+
+    /**
+     * Returns the frames of the given tickers with a sequence after the given one, oldest first.
+     *
+     * @param sequence the last sequence the subscriber has seen
+     * @param tickers the tickers to return frames for
+     * @return the frames after the given sequence, or an empty Optional when some of them were already evicted
+     *         or the sequence was not issued by this journal
+     */
+    synchronized Optional<List<PriceFrame>> since(long sequence, Collection<Ticker> tickers) {
+        var retained = (int) Math.min(this.count, this.frames.length);
+        if (retained == 0) {
+            return Optional.empty();
+        }
+        var oldest = this.frames[(int) ((this.count - retained) % this.frames.length)].sequence();
+        var latest = this.frames[(int) ((this.count - 1) % this.frames.length)].sequence();
+        if (sequence < oldest - 1 || sequence > latest) {
+            return Optional.empty();
+        }
+        var result = new ArrayList<PriceFrame>((int) (latest - sequence));
+        for (long i = this.count - (latest - sequence); i < this.count; i++) {
+            var frame = this.frames[(int) (i % this.frames.length)];
+            if (tickers.contains(frame.ticker())) {
+                result.add(frame);
+            }
+        }
+        return Optional.of(result);
+    }
+}
@@ -0,0 +1,293 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.stream;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
+
+@Component
+public class PriceStreamBroadcaster {
+
+    public static final MediaType EVENT_STREAM = new MediaType(MediaType.TEXT_EVENT_STREAM, StandardCharsets.UTF_8);
+
+    private static final ResolvableType PRICE_UPDATE_TYPE = ResolvableType.forClass(PriceUpdate.class);
+    private static final byte[] ID_PREFIX = "id:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA_PREFIX = "\ndata:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FRAME_END = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final Jackson2JsonEncoder encoder;
+    private final PriceIngestionEngine priceIngestionEngine;
+    private final List<Sinks.Many<PriceFrame>> tickerSinks;
+    private final AtomicReferenceArray<PriceUpdate> latest = new AtomicReferenceArray<>(Ticker.values().length);
+    private final PriceJournal journal;
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    private final Counter conflated;
+    private final Timer subscriberLag;
+    private final FeedLag feedLag;
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Counter replayed;
+    private final Counter snapshots;
+    private final String idPrefix = Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), Character.MAX_RADIX) + "-";
+    private long sequence;
+
+    /**
+     * Constructs a new PriceStreamBroadcaster on top of the price feed of the given PriceIngestionEngine.
+     *
+     * @param priceIngestionEngine the engine providing the price feed
+     * @param objectMapper the application object mapper, so frames match what WebFlux would have written
+     * @param journalCapacity the number of latest frames kept to replay reconnecting subscribers
+     * @param meterRegistry the registry to publish the conflation, lag, subscriber and resume metrics to
+     */
+    public PriceStreamBroadcaster(PriceIngestionEngine priceIngestionEngine,
+                                  ObjectMapper objectMapper,
+                                  @Value("${price.stream.journal.capacity:1024}") int journalCapacity,
+                                  MeterRegistry meterRegistry) {
+        this.encoder = new Jackson2JsonEncoder(objectMapper);
+        this.priceIngestionEngine = priceIngestionEngine;
+        this.journal = new PriceJournal(journalCapacity);
+        this.tickerSinks = Stream.of(Ticker.values())
+                .map(ticker -> Sinks.many().replay().<PriceFrame>latest())
+                .toList();
+        this.conflated = meterRegistry.counter("price.stream.conflated");
+        this.subscriberLag = Timer.builder("price.stream.subscriber.lag")
+                .description("Time a ticker waited for a subscriber to accept its latest price")
+                .register(meterRegistry);
+        this.feedLag = new FeedLag(meterRegistry, new EpochClock(ZoneId.systemDefault()));
+        Gauge.builder("price.stream.subscribers", this.subscribers, AtomicInteger::get)
+                .description("Server-sent event subscribers of the price stream")
+                .register(meterRegistry);
+        this.replayed = meterRegistry.counter("price.stream.resume", "outcome", "replayed");
+        this.snapshots = meterRegistry.counter("price.stream.resume", "outcome", "snapshot");
+    }
+
+    /**
+     * Returns the stream of encoded price frames of all tickers.
+     *
+     * Each price update is serialized exactly once, no matter how many subscribers there are.
+     * The latest frame of every ticker is replayed to new subscribers.
+     *
+     * @return a Flux of `PriceFrame` objects
+     */
+    public Flux<PriceFrame> frames() {
+        return this.frames(List.of(Ticker.values()));
+    }
+
+    /**
+     * Returns the stream of encoded price frames for the given tickers.
+     *
+     * Every ticker has a single hot sub-stream of encoded frames, so frames are encoded and routed once per tick
+     * rather than once per subscriber. The latest frame of each requested ticker is replayed to new subscribers.
+     *
+     * @param tickers the tickers to stream, or an empty collection for all tickers
+     * @return a Flux of `PriceFrame` objects for the given tickers
+     */
+    public Flux<PriceFrame> frames(Collection<Ticker> tickers) {
+        if (CollectionUtils.isEmpty(tickers)) {
+            return this.frames();
+        }
+        return Flux.defer(() -> {
+            this.startDispatching();
+            return Flux.merge(tickers.stream()
+                    .distinct()
+                    .map(ticker -> this.tickerSinks.get(ticker.ordinal()).asFlux())
+                    .toList());
+        });
+    }
+
+    /**
+     * Returns the stream of encoded price frames for one subscriber of the given tickers, resuming after the given
+     * event id.
+     *
+     * When every frame after the last event id is still in the journal, those frames are replayed before the live
+     * frames that follow them. Otherwise, including when the id was issued by another epoch, such as before a
+     * restart, the subscriber starts from the latest frame of every requested ticker, as a new subscriber would.
+     *
+     * The live frames are subscribed to and buffered before the journal is read, and the buffered frames already
+     * replayed from the journal are skipped by sequence. A frame dispatched while the journal is read is therefore
+     * either replayed or buffered, and never lost between the two.
+     *
+     * Live frames are conflated per ticker, so a slow subscriber receives the latest price of each ticker instead of
+     * a growing backlog. Replayed frames are not: they are emitted with backpressure ahead of the conflated live
+     * frames, so a resuming subscriber receives every frame it missed.
+     *
+     * @param tickers the tickers to stream, or an empty collection for all tickers
+     * @param lastEventId the id of the last frame the subscriber received, or null for a new subscriber
+     * @return a Flux of `PriceFrame` objects for the given tickers
+     */
+    public Flux<PriceFrame> frames(Collection<Ticker> tickers, String lastEventId) {
+        if (Objects.isNull(lastEventId)) {
+            return this.conflate(this.frames(tickers));
+        }
+        var requested = CollectionUtils.isEmpty(tickers) ? List.of(Ticker.values()) : tickers;
+        return Flux.defer(() -> {
+            var live = Sinks.many().unicast().<PriceFrame>onBackpressureBuffer();
+            var subscription = this.frames(requested)
+                    .subscribe(live::tryEmitNext, live::tryEmitError, live::tryEmitComplete);
+            return this.sequence(lastEventId)
+                    .flatMap(lastSequence -> this.journal.since(lastSequence, requested)
+                            .map(missed -> {
+                                this.replayed.increment();
+                                var resumeAfter = missed.isEmpty() ? lastSequence : missed.get(missed.size() - 1).sequence();
+                                return Flux.fromIterable(missed)
+                                        .concatWith(this.conflate(live.asFlux().filter(frame -> frame.sequence() > resumeAfter)));
+                            }))
+                    .orElseGet(() -> {
+                        this.snapshots.increment();
+                        return this.conflate(live.asFlux());
+                    })
+                    .doFinally(signal -> subscription.dispose());
+        });
+    }
+
+    /**
+     * Returns the sequence of the given event id when it was issued by this broadcaster.
+     *
+     * Sequences restart with every epoch, so an id of another epoch says nothing about the frames of this one.
+     */
+    private Optional<Long> sequence(String eventId) {
+        if (!eventId.startsWith(this.idPrefix)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.parseLong(eventId, this.idPrefix.length(), eventId.length(), 10));
+        } catch (NumberFormatException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the price updates of the given tickers for a single subscriber that consumes them in process.
+     *
+     * Updates come from the same per-ticker sub-streams as {@link #frames(Collection)} and are conflated per ticker
+     * for this subscriber.
+     *
+     * @param tickers the tickers to stream, or an empty collection for all tickers
+     * @return a Flux of `PriceUpdate` objects for the given tickers
+     */
+    public Flux<PriceUpdate> updates(Collection<Ticker> tickers) {
+        return this.conflate(this.frames(tickers))
+                .map(PriceFrame::update);
+    }
+
+    /**
+     * Returns the latest price update dispatched for the given ticker.
+     *
+     * @param ticker the ticker to look up
+     * @return the latest price update of the ticker, or empty when none was dispatched yet
+     */
+    public Optional<PriceUpdate> latest(Ticker ticker) {
+        return Optional.ofNullable(this.latest.get(ticker.ordinal()));
+    }
+
+    /**
+     * Writes the given frames to the response as a server-sent event stream.
+     *
+     * Every frame is wrapped, not copied, so all subscribers send the same bytes. Frames are written as given, with
+     * backpressure; {@link #frames(Collection, String)} provides them conflated for a single subscriber.
+     * The subscriber is counted while the stream is open, and the feed lag of every frame is recorded as it is emitted.
+     *
+     * @param frames the frames to write
+     * @param response the response to write to
+     * @return a Mono that completes when the stream ends
+     */
+    public Mono<Void> write(Flux<PriceFrame> frames, ServerHttpResponse response) {
+        var bufferFactory = response.bufferFactory();
+        response.getHeaders().setContentType(EVENT_STREAM);
+        return response.writeAndFlushWith(frames
+                .doOnSubscribe(subscription -> this.subscribers.incrementAndGet())
+                .doFinally(signal -> this.subscribers.decrementAndGet())
+                .map(frame -> {
+                    this.feedLag.record(frame.update());
+                    return Mono.just(bufferFactory.wrap(frame.bytes()));
+                }));
+    }
+
+    /**
+     * Subscribes once to the price feed, encodes every update and routes the frame to the sub-stream of its ticker.
+     *
+     * Frames are journaled before they are routed, so a resuming subscriber, whose live frames are buffered before
+     * it reads the journal, finds every frame in the journal, in its buffer or in both.
+     */
+    private void startDispatching() {
+        if (!this.dispatching.compareAndSet(false, true)) {
+            return;
+        }
+        this.priceIngestionEngine.updates()
+                .map(this::encode)
+                .subscribe(
+                frame -> {
+                    this.journal.append(frame);
+                    this.latest.set(frame.ticker().ordinal(), frame.update());
+                    this.tickerSinks.get(frame.ticker().ordinal()).tryEmitNext(frame);
+                },
+                ex -> this.tickerSinks.forEach(sink -> sink.tryEmitError(ex)),
+                () -> this.tickerSinks.forEach(Sinks.Many::tryEmitComplete)
+        );
+    }
+
+    private Flux<PriceFrame> conflate(Flux<PriceFrame> frames) {
+        return ConflatingBuffer.conflate(frames, Ticker.values().length, frame -> frame.ticker().ordinal(), this.conflated, this.subscriberLag);
+    }
+
+    /**
+     * Encodes a price update as a server-sent event frame.
+     *
+     * The frame layout mirrors `ServerSentEventHttpMessageWriter` for an event with an id and data:
+     * the `id:` field with the next id, the `data:` field, the JSON encoded value and a blank line.
+     * Ids are the sequence prefixed with a random epoch, so an id issued before a restart is never taken for one of
+     * this instance.
+     *
+     * @param priceUpdate the price update to encode
+     * @return the encoded frame
+     */
+    private PriceFrame encode(PriceUpdate priceUpdate) {
+        var json = this.encoder.encodeValue(priceUpdate, DefaultDataBufferFactory.sharedInstance, PRICE_UPDATE_TYPE, MediaType.TEXT_EVENT_STREAM, Map.of());
+        try {
+            var sequence = ++this.sequence;
+            var id = this.idPrefix + sequence;
+            var idBytes = id.getBytes(StandardCharsets.US_ASCII);
+            var length = json.readableByteCount();
+            var bytes = new byte[ID_PREFIX.length + idBytes.length + DATA_PREFIX.length + length + FRAME_END.length];
+            var position = 0;
+            System.arraycopy(ID_PREFIX, 0, bytes, position, ID_PREFIX.length);
+            position += ID_PREFIX.length;
+            System.arraycopy(idBytes, 0, bytes, position, idBytes.length);
+            position += idBytes.length;
+            System.arraycopy(DATA_PREFIX, 0, bytes, position, DATA_PREFIX.length);
+            position += DATA_PREFIX.length;
+            json.read(bytes, position, length);
+            System.arraycopy(FRAME_END, 0, bytes, position + length, FRAME_END.length);
+            return new PriceFrame(id, sequence, priceUpdate, bytes);
+        } finally {
+            DataBufferUtils.release(json);
+        }
+    }
+}
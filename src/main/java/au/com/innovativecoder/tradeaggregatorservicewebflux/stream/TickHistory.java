@@ -0,0 +1,159 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.stream;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.CandleInterval;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.Candle;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.Tick;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the recent price history of every ticker, fed from the price feed.
+ *
+ * Every ticker has a ring buffer of its latest ticks and a candle series per {@link CandleInterval}. Both are
+ * primitive arrays allocated up front, so recording a tick retains no objects. A tick older than the latest tick
+ * of its ticker is late; it is dropped from both, so that the candles always summarize the ticks, and counted.
+ */
+@Component
+public class TickHistory {
+
+    private static final Logger log = LoggerFactory.getLogger(TickHistory.class);
+
+    private final PriceIngestionEngine priceIngestionEngine;
+    private final EpochClock clock = new EpochClock(ZoneId.systemDefault());
+    private final List<TickRingBuffer> ticks;
+    private final List<List<CandleSeries>> candles;
+    private final Counter late;
+    private Disposable subscription;
+
+    /**
+     * Constructs a new TickHistory.
+     *
+     * @param priceIngestionEngine the engine providing the price feed
+     * @param tickCapacity the number of latest ticks kept per ticker
+     * @param candleCapacity the number of latest candles kept per ticker and interval
+     * @param meterRegistry the registry to publish the late tick counter to
+     */
+    public TickHistory(PriceIngestionEngine priceIngestionEngine,
+                       @Value("${tick.history.capacity:4096}") int tickCapacity,
+                       @Value("${candle.history.capacity:500}") int candleCapacity,
+                       MeterRegistry meterRegistry) {
+        this.priceIngestionEngine = priceIngestionEngine;
+        this.ticks = Stream.of(Ticker.values())
+                .map(ticker -> new TickRingBuffer(tickCapacity))
+                .toList();
+        this.candles = Stream.of(Ticker.values())
+                .map(ticker -> Stream.of(CandleInterval.values())
+                        .map(interval -> new CandleSeries(interval.millis(), candleCapacity))
+                        .toList())
+                .toList();
+        this.late = meterRegistry.counter("tick.history.late");
+    }
+
+    /**
+     * Subscribes to the price feed so that the history is kept up to date.
+     */
+    @PostConstruct
+    public void start() {
+        this.subscription = this.priceIngestionEngine.updates()
+                .subscribe(this::record, ex -> log.error("tick history feed terminated : {}", ex.getMessage()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (Objects.nonNull(this.subscription)) {
+            this.subscription.dispose();
+        }
+    }
+
+    /**
+     * Records a price update in the tick ring buffer and the candle series of its ticker.
+     *
+     * Updates without a timestamp are recorded at the time they are received. Late updates are dropped.
+     *
+     * @param priceUpdate the price update received from the stock service
+     */
+    public void record(PriceUpdate priceUpdate) {
+        if (Objects.isNull(priceUpdate.ticker()) || Objects.isNull(priceUpdate.price())) {
+            return;
+        }
+        var time = Objects.isNull(priceUpdate.time()) ? this.clock.now() : this.clock.toEpochMillis(priceUpdate.time());
+        int price = priceUpdate.price();
+        var index = priceUpdate.ticker().ordinal();
+        if (!this.ticks.get(index).append(time, price)) {
+            this.late.increment();
+            return;
+        }
+        for (var series : this.candles.get(index)) {
+            series.apply(time, price);
+        }
+    }
+
+    /**
+     * Returns the number of latest ticks kept per ticker.
+     *
+     * @return the tick capacity
+     */
+    public int tickCapacity() {
+        return this.ticks.get(0).capacity();
+    }
+
+    /**
+     * Returns the number of latest candles kept per ticker and interval.
+     *
+     * @return the candle capacity
+     */
+    public int candleCapacity() {
+        return this.candles.get(0).get(0).capacity();
+    }
+
+    /**
+     * Returns the latest ticks of the given ticker, oldest first.
+     *
+     * @param ticker the ticker symbol of the stock
+     * @param limit the maximum number of ticks to return
+     * @return the latest ticks
+     */
+    public List<Tick> ticks(Ticker ticker, int limit) {
+        var n = Math.min(limit, this.tickCapacity());
+        var times = new long[n];
+        var prices = new int[n];
+        var copied = this.ticks.get(ticker.ordinal()).copyLatest(n, times, prices);
+        var result = new ArrayList<Tick>(copied);
+        for (int i = 0; i < copied; i++) {
+            result.add(new Tick(this.clock.toLocalDateTime(times[i]), prices[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the latest candles of the given ticker for the given interval, oldest first.
+     *
+     * The last candle is still open and changes as further ticks arrive.
+     *
+     * @param ticker the ticker symbol of the stock
+     * @param interval the candle interval
+     * @param limit the maximum number of candles to return
+     * @return the latest candles
+     */
+    public List<Candle> candles(Ticker ticker, CandleInterval interval, int limit) {
+        var result = new ArrayList<Candle>(Math.min(limit, this.candleCapacity()));
+        this.candles.get(ticker.ordinal()).get(interval.ordinal()).forEachLatest(limit, (start, open, high, low, close, ticks) ->
+                result.add(new Candle(ticker, this.clock.toLocalDateTime(start), open, high, low, close, ticks)));
+        return result;
+    }
+}
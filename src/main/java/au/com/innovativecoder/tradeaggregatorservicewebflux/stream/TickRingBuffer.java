@@ -0,0 +1,77 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux.stream;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The latest ticks of one ticker, kept in parallel primitive arrays of fixed capacity and in time order.
+ *
+ * A tick older than the latest one is late and is not appended. There is a single writer. Readers copy a consistent
+ * range under an optimistic read and fall back to a read lock when a write interleaved.
+ */
+final class TickRingBuffer {
+
+    private final long[] times;
+    private final int[] prices;
+    private final StampedLock lock = new StampedLock();
+    private long count;
+
+    TickRingBuffer(int capacity) {
+        this.times = new long[capacity];
+        this.prices = new int[capacity];
+    }
+
+    int capacity() {
+        return this.times.length;
+    }
+
+    /**
+     * Appends a tick unless it is older than the latest one.
+     *
+     * @return false when the tick is late and was not appended
+     */
+    boolean append(long time, int price) {
+        var stamp = this.lock.writeLock();
+        try {
+            if (this.count > 0 && time < this.times[(int) ((this.count - 1) % this.times.length)]) {
+                return false;
+            }
+            var index = (int) (this.count % this.times.length);
+            this.times[index] = time;
+            this.prices[index] = price;
+            this.count++;
+            return true;
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Copies up to the given number of the latest ticks into the given arrays, oldest first.
+     *
+     * @return the number of ticks copied
+     */
+    int copyLatest(int limit, long[] times, int[] prices) {
+        var stamp = this.lock.tryOptimisticRead();
+        var copied = this.copy(limit, times, prices);
+        if (this.lock.validate(stamp)) {
+            return copied;
+        }
+        stamp = this.lock.readLock();
+        try {
+            return this.copy(limit, times, prices);
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    private int copy(int limit, long[] times, int[] prices) {
+        var count = this.count;
+        var n = (int) Math.min(Math.min(limit, count), this.times.length);
+        for (int i = 0; i < n; i++) {
+            var index = (int) ((count - n + i) % this.times.length);
+            times[i] = this.times[index];
+            prices[i] = this.prices[index];
+        }
+        return n;
+    }
+}
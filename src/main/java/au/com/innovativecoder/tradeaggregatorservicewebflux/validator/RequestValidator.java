@@ -1,5 +1,6 @@
 package au.com.innovativecoder.tradeaggregatorservicewebflux.validator;
 
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.OrderRequest;
 import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.TradeRequest;
 import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.ApplicationExceptions;
 import reactor.core.publisher.Mono;
@@ -19,6 +20,16 @@ public class RequestValidator {
                 .switchIfEmpty(ApplicationExceptions.invalidQuantity());
     }
 
+    public static UnaryOperator<Mono<OrderRequest>> validateOrder() {
+        return orderRequestMono -> orderRequestMono.flatMap(dto -> Mono.just(dto.toTradeRequest())
+                        .transform(validate())
+                        .thenReturn(dto))
+                .filter(hasOrderType())
+                .switchIfEmpty(ApplicationExceptions.missingOrderType())
+                .filter(hasValidTriggerPrice())
+                .switchIfEmpty(ApplicationExceptions.invalidTriggerPrice());
+    }
+
     private static Predicate<TradeRequest> hasTicker() {
         return dto -> Objects.nonNull(dto.ticker());
     }
@@ -30,4 +41,12 @@ public class RequestValidator {
     private static Predicate<TradeRequest> hasValidQuantity() {
         return dto -> Objects.nonNull(dto.quantity()) && dto.quantity() > 0;
     }
+
+    private static Predicate<OrderRequest> hasOrderType() {
+        return dto -> Objects.nonNull(dto.type());
+    }
+
+    private static Predicate<OrderRequest> hasValidTriggerPrice() {
+        return dto -> Objects.nonNull(dto.triggerPrice()) && dto.triggerPrice() > 0;
+    }
 }
@@ -25,7 +25,8 @@ import org.springframework.test.web.reactive.server.WebTestClient;
 @MockServerTest
 @SpringBootTest(properties = {
         "customer.service.url=http://localhost:${mockServerPort}",
-        "stock.service.url=http://localhost:${mockServerPort}"
+        "stock.service.url=http://localhost:${mockServerPort}",
+        "trade.journal.directory=build/trade-journal"
 })
 abstract class AbstractIntegrationTest {
 
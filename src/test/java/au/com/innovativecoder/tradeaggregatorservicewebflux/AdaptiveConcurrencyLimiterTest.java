@@ -0,0 +1,135 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.advice.ProblemDetails;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.DownstreamUnavailableException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.AdaptiveConcurrencyLimiter;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.LimiterProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testLimitGrowsWhileLatencyIsFlatAndShrinksWhenCallsQueueOrFail() {
+        var properties = new LimiterProperties();
+        properties.setInitialLimit(20);
+        properties.setFailureThreshold(100);
+        var limiter = new AdaptiveConcurrencyLimiter("test", properties, this.meterRegistry, this.clock::get);
+
+        var calls = this.inFlight(limiter, 10);
+        this.clock.addAndGet(Duration.ofMillis(10).toNanos());
+        calls.forEach(call -> call.tryEmitValue("ok"));
+        var grown = this.limit();
+        Assertions.assertEquals(20 + Math.log10(20), grown, 0.001);
+
+        calls = this.inFlight(limiter, 1);
+        this.clock.addAndGet(Duration.ofMillis(100).toNanos());
+        calls.forEach(call -> call.tryEmitValue("ok"));
+        var queued = this.limit();
+        Assertions.assertEquals(grown - Math.log10(grown), queued, 0.001);
+
+        StepVerifier.create(limiter.guard(Mono.error(new IllegalStateException("failed"))))
+                .verifyErrorMessage("failed");
+        Assertions.assertEquals(queued * properties.getBackoffRatio(), this.limit(), 0.001);
+    }
+
+    @Test
+    void testCallsAboveTheLimitAreShedAsServiceUnavailable() {
+        var properties = new LimiterProperties();
+        properties.setInitialLimit(2);
+        properties.setMinLimit(2);
+        var limiter = new AdaptiveConcurrencyLimiter("test", properties, this.meterRegistry, this.clock::get);
+
+        var calls = this.inFlight(limiter, 2);
+        StepVerifier.create(limiter.guard(Mono.just("shed")))
+                .expectErrorSatisfies(ex -> {
+                    Assertions.assertInstanceOf(DownstreamUnavailableException.class, ex);
+                    var problem = ProblemDetails.of(ex);
+                    Assertions.assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), problem.getStatus());
+                    Assertions.assertEquals(URI.create("http://innovativecoder.com.au/problems/downstream-unavailable"), problem.getType());
+                    Assertions.assertEquals("test is overloaded, please retry later", problem.getDetail());
+                })
+                .verify();
+        Assertions.assertEquals(1, this.meterRegistry.counter("downstream.limiter.shed", "downstream", "test").count());
+
+        calls.get(0).tryEmitValue("ok");
+        StepVerifier.create(limiter.guard(Mono.just("passed")))
+                .expectNext("passed")
+                .verifyComplete();
+    }
+
+    @Test
+    void testCircuitOpensHalfOpensAndCloses() {
+        var properties = new LimiterProperties();
+        properties.setFailureThreshold(2);
+        properties.setOpenDuration(Duration.ofSeconds(5));
+        var limiter = new AdaptiveConcurrencyLimiter("test", properties, this.meterRegistry, this.clock::get);
+
+        for (var i = 0; i < 2; i++) {
+            StepVerifier.create(limiter.guard(Mono.error(new IllegalStateException("failed"))))
+                    .verifyErrorMessage("failed");
+        }
+        Assertions.assertEquals(2, this.state());
+        StepVerifier.create(limiter.guard(Mono.just("rejected")))
+                .verifyErrorMessage("test is unavailable, please retry later");
+
+        // A single probe passes once the circuit has been open for the open duration, and a failed one opens it again:
+        this.clock.addAndGet(properties.getOpenDuration().toNanos());
+        var probe = this.inFlight(limiter, 1).get(0);
+        Assertions.assertEquals(1, this.state());
+        StepVerifier.create(limiter.guard(Mono.just("rejected")))
+                .verifyErrorMessage("test is unavailable, please retry later");
+        probe.tryEmitError(new IllegalStateException("failed"));
+        Assertions.assertEquals(2, this.state());
+        StepVerifier.create(limiter.guard(Mono.just("rejected")))
+                .verifyErrorMessage("test is unavailable, please retry later");
+
+        // A cancelled probe releases the half open circuit, so the next call probes instead:
+        this.clock.addAndGet(properties.getOpenDuration().toNanos());
+        StepVerifier.create(limiter.guard(Mono.never()))
+                .thenCancel()
+                .verify();
+        Assertions.assertEquals(2, this.state());
+
+        StepVerifier.create(limiter.guard(Mono.just("probe")))
+                .expectNext("probe")
+                .verifyComplete();
+        Assertions.assertEquals(0, this.state());
+        StepVerifier.create(limiter.guard(Mono.just("closed")))
+                .expectNext("closed")
+                .verifyComplete();
+        Assertions.assertEquals(3, this.meterRegistry.counter("downstream.circuit.rejected", "downstream", "test").count());
+    }
+
+    private List<Sinks.One<String>> inFlight(AdaptiveConcurrencyLimiter limiter, int count) {
+        var calls = new ArrayList<Sinks.One<String>>();
+        for (var i = 0; i < count; i++) {
+            var call = Sinks.<String>one();
+            limiter.guard(call.asMono()).subscribe();
+            calls.add(call);
+        }
+        return calls;
+    }
+
+    private double limit() {
+        return this.meterRegistry.get("downstream.limiter.limit").tag("downstream", "test").gauge().value();
+    }
+
+    private double state() {
+        return this.meterRegistry.get("downstream.circuit.state").tag("downstream", "test").gauge().value();
+    }
+}
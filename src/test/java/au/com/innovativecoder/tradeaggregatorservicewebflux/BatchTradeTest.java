@@ -0,0 +1,98 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.model.MediaType;
+import org.mockserver.verify.VerificationTimes;
+
+import java.util.List;
+
+public class BatchTradeTest extends AbstractIntegrationTest {
+
+    @Test
+    void testMalformedLineIsReportedWithoutFailingTheBatch() {
+
+        this.mockServerClient.when(HttpRequest.request("/stock/APPLE"))
+                .respond(HttpResponse.response("""
+                                {"ticker": "APPLE", "price": 100}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+        this.mockServerClient.when(HttpRequest.request("/customers/51/trade").withMethod("POST"))
+                .respond(HttpResponse.response("""
+                                {"customer": 51, "ticker": "APPLE", "price": 100, "quantity": 1, "action": "BUY", "totalPrice": 100, "balance": 900}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+
+        var items = this.trades(51, """
+                {"ticker": "APPLE", "action": "BUY", "quantity": 1}
+                {"ticker": "APPLE", "action":
+                {"ticker": "APPLE", "action": "BUY", "quantity": 1}
+                """);
+
+        Assertions.assertEquals(3, items.size());
+        Assertions.assertEquals(900, items.get(0).get("balance").asInt());
+        Assertions.assertEquals(400, items.get(1).get("status").asInt());
+        Assertions.assertEquals("Trade request is not valid JSON", items.get(1).get("detail").asText());
+        Assertions.assertEquals(900, items.get(2).get("balance").asInt());
+    }
+
+    @Test
+    void testInvalidItemsAreReportedInPlaceOfTheirTrades() {
+
+        this.mockServerClient.when(HttpRequest.request("/stock/APPLE"))
+                .respond(HttpResponse.response("""
+                                {"ticker": "APPLE", "price": 100}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+        this.mockServerClient.when(HttpRequest.request("/customers/52/trade").withMethod("POST"))
+                .respond(HttpResponse.response("""
+                                {"customer": 52, "ticker": "APPLE", "price": 100, "quantity": 1, "action": "BUY", "totalPrice": 100, "balance": 900}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+
+        var items = this.trades(52, """
+                {"ticker": "APPLE", "action": "BUY", "quantity": 1}
+                {"action": "BUY", "quantity": 1}
+                {"ticker": "APPLE", "quantity": 1}
+                {"ticker": "APPLE", "action": "BUY", "quantity": 0}
+                {"ticker": "APPLE", "action": "BUY", "quantity": 1}
+                """);
+
+        Assertions.assertEquals(5, items.size());
+        Assertions.assertEquals(900, items.get(0).get("balance").asInt());
+        Assertions.assertEquals("Ticker is required", items.get(1).get("detail").asText());
+        Assertions.assertEquals("Trade Action is required", items.get(2).get("detail").asText());
+        Assertions.assertEquals("Quantity should be > 0", items.get(3).get("detail").asText());
+        for (var problem : items.subList(1, 4)) {
+            Assertions.assertEquals(400, problem.get("status").asInt());
+            Assertions.assertEquals("Invalid Trade Request", problem.get("title").asText());
+        }
+        Assertions.assertEquals(900, items.get(4).get("balance").asInt());
+        this.mockServerClient.verify(HttpRequest.request("/customers/52/trade"), VerificationTimes.exactly(2));
+    }
+
+    private List<JsonNode> trades(Integer customerId, String body) {
+        return this.client.post()
+                .uri("/customers/{customerId}/trades", customerId)
+                .contentType(org.springframework.http.MediaType.APPLICATION_NDJSON)
+                .accept(org.springframework.http.MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(JsonNode.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+    }
+}
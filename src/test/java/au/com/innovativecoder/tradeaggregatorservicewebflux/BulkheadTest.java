@@ -0,0 +1,79 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.service.Bulkhead;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class BulkheadTest {
+
+    private final List<Integer> started = new ArrayList<>();
+
+    @Test
+    void testTasksAboveTheBoundStartInArrivalOrder() {
+        var bulkhead = new Bulkhead(2);
+        var tasks = new ArrayList<Sinks.One<Integer>>();
+        var results = new ArrayList<CompletableFuture<Integer>>();
+        for (var i = 0; i < 5; i++) {
+            var task = Sinks.<Integer>one();
+            tasks.add(task);
+            results.add(bulkhead.execute(this.task(i, task)).toFuture());
+        }
+        Assertions.assertEquals(List.of(0, 1), this.started);
+
+        tasks.get(1).tryEmitValue(1);
+        Assertions.assertEquals(List.of(0, 1, 2), this.started);
+        tasks.get(0).tryEmitValue(0);
+        tasks.get(2).tryEmitEmpty();
+        Assertions.assertEquals(List.of(0, 1, 2, 3, 4), this.started);
+        tasks.get(3).tryEmitError(new IllegalStateException("failed"));
+        tasks.get(4).tryEmitValue(4);
+
+        Assertions.assertEquals(1, results.get(1).join());
+        Assertions.assertEquals(0, results.get(0).join());
+        Assertions.assertNull(results.get(2).join());
+        Assertions.assertTrue(results.get(3).isCompletedExceptionally());
+        Assertions.assertEquals(4, results.get(4).join());
+    }
+
+    @Test
+    void testCancellingAWaitingTaskSkipsIt() {
+        var bulkhead = new Bulkhead(1);
+        var running = Sinks.<Integer>one();
+        bulkhead.execute(this.task(0, running)).subscribe();
+        bulkhead.execute(this.task(1, Sinks.one())).subscribe().dispose();
+        var next = bulkhead.execute(this.task(2, Sinks.one())).toFuture();
+
+        running.tryEmitValue(0);
+
+        Assertions.assertEquals(List.of(0, 2), this.started);
+        Assertions.assertFalse(next.isDone());
+    }
+
+    @Test
+    void testCancellingARunningTaskReleasesItsPermit() {
+        var bulkhead = new Bulkhead(1);
+        var cancelled = new AtomicBoolean();
+        var running = bulkhead.execute(this.task(0, Sinks.one()).doOnCancel(() -> cancelled.set(true))).subscribe();
+        bulkhead.execute(this.task(1, Sinks.one())).subscribe();
+        Assertions.assertEquals(List.of(0), this.started);
+
+        running.dispose();
+
+        Assertions.assertTrue(cancelled.get());
+        Assertions.assertEquals(List.of(0, 1), this.started);
+    }
+
+    private Mono<Integer> task(int id, Sinks.One<Integer> result) {
+        return Mono.defer(() -> {
+            this.started.add(id);
+            return result.asMono();
+        });
+    }
+}
@@ -0,0 +1,38 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.ConflatingBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+public class ConflatingBufferTest {
+
+    @Test
+    void testSlowSubscriberReceivesLatestPricePerTicker() {
+        var registry = new SimpleMeterRegistry();
+        var conflated = registry.counter("conflated");
+        var sink = Sinks.many().multicast().<PriceUpdate>onBackpressureBuffer();
+        var flux = ConflatingBuffer.conflate(sink.asFlux(), Ticker.values().length, update -> update.ticker().ordinal(), conflated, registry.timer("lag"));
+
+        StepVerifier.create(flux, 0)
+                .then(() -> {
+                    sink.tryEmitNext(new PriceUpdate(Ticker.APPLE, 1, null));
+                    sink.tryEmitNext(new PriceUpdate(Ticker.GOOGLE, 2, null));
+                    sink.tryEmitNext(new PriceUpdate(Ticker.APPLE, 3, null));
+                    sink.tryEmitNext(new PriceUpdate(Ticker.APPLE, 4, null));
+                })
+                .thenRequest(1)
+                .expectNext(new PriceUpdate(Ticker.APPLE, 4, null))
+                .then(() -> sink.tryEmitNext(new PriceUpdate(Ticker.GOOGLE, 5, null)))
+                .then(sink::tryEmitComplete)
+                .thenRequest(Long.MAX_VALUE)
+                .expectNext(new PriceUpdate(Ticker.GOOGLE, 5, null))
+                .verifyComplete();
+
+        Assertions.assertEquals(3, conflated.count());
+    }
+}
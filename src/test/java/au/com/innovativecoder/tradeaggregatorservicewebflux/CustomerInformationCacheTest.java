@@ -0,0 +1,75 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.client.CustomerServiceClient;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.CustomerInformation;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.Holding;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeResponse;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.service.CustomerInformationCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+
+public class CustomerInformationCacheTest {
+
+    private static final CustomerInformation SAM = new CustomerInformation(1, "sam", 1000, List.of(new Holding(Ticker.APPLE, 5)));
+
+    private final CustomerServiceClient customerServiceClient = Mockito.mock(CustomerServiceClient.class);
+    private final CustomerInformationCache cache = new CustomerInformationCache(this.customerServiceClient, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+    @Test
+    void testConcurrentMissesShareOneLoad() {
+        var load = Sinks.<CustomerInformation>one();
+        Mockito.when(this.customerServiceClient.getCustomerInformation(1)).thenReturn(load.asMono());
+
+        var first = this.cache.get(1).toFuture();
+        var second = this.cache.get(1).toFuture();
+        load.tryEmitValue(SAM);
+
+        Assertions.assertEquals(SAM, first.join());
+        Assertions.assertEquals(SAM, second.join());
+        Assertions.assertEquals(SAM, this.cache.get(1).block());
+        Mockito.verify(this.customerServiceClient, Mockito.times(1)).getCustomerInformation(1);
+    }
+
+    @Test
+    void testTradesArePatchedIntoTheCachedCustomer() {
+        Mockito.when(this.customerServiceClient.getCustomerInformation(1)).thenReturn(Mono.just(SAM));
+        this.cache.get(1).block();
+
+        this.cache.apply(1, new StockTradeResponse(1, Ticker.GOOGLE, 50, 2, TradeAction.BUY, 100, 900));
+        Assertions.assertEquals(new CustomerInformation(1, "sam", 900, List.of(new Holding(Ticker.APPLE, 5), new Holding(Ticker.GOOGLE, 2))),
+                this.cache.get(1).block());
+
+        this.cache.apply(1, new StockTradeResponse(1, Ticker.APPLE, 100, 3, TradeAction.SELL, 300, 1200));
+        Assertions.assertEquals(new CustomerInformation(1, "sam", 1200, List.of(new Holding(Ticker.APPLE, 2), new Holding(Ticker.GOOGLE, 2))),
+                this.cache.get(1).block());
+
+        Mockito.verify(this.customerServiceClient, Mockito.times(1)).getCustomerInformation(1);
+    }
+
+    @Test
+    void testTradesThatCannotBePatchedInvalidateTheCachedCustomer() {
+        Mockito.when(this.customerServiceClient.getCustomerInformation(1)).thenReturn(Mono.just(SAM));
+        this.cache.get(1).block();
+
+        this.cache.apply(1, new StockTradeResponse(1, Ticker.AMAZON, 30, 1, TradeAction.SELL, 30, 1030));
+        this.cache.get(1).block();
+        Mockito.verify(this.customerServiceClient, Mockito.times(2)).getCustomerInformation(1);
+
+        this.cache.apply(1, new StockTradeResponse(1, Ticker.APPLE, 100, 1, TradeAction.BUY, 100, null));
+        this.cache.get(1).block();
+        Mockito.verify(this.customerServiceClient, Mockito.times(3)).getCustomerInformation(1);
+
+        this.cache.apply(1, new StockTradeResponse(1, Ticker.APPLE, 100, null, null, 100, 900));
+        Assertions.assertEquals(SAM, this.cache.get(1).block());
+        Mockito.verify(this.customerServiceClient, Mockito.times(4)).getCustomerInformation(1);
+    }
+}
@@ -1,12 +1,22 @@
 package au.com.innovativecoder.tradeaggregatorservicewebflux;
 
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.CustomerInformation;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.Holding;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.model.HttpResponse;
 import org.mockserver.model.MediaType;
+import org.mockserver.verify.VerificationTimes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 public class CustomerInformationTest extends AbstractIntegrationTest {
@@ -32,4 +42,86 @@ public class CustomerInformationTest extends AbstractIntegrationTest {
                 .exchange()
                 .expectBody();
     }
+
+    @Test
+    void testCustomerInformationIsNegotiatedAsCbor() throws IOException {
+
+        var responseBody = """
+                {
+                    "id": 2,
+                    "name": "sam",
+                    "balance": 10000,
+                    "holdings": [{"ticker": "APPLE", "quantity": 5}]
+                }
+                """;
+
+        this.mockServerClient.when(HttpRequest.request("/customers/2"))
+                .respond(HttpResponse.response(responseBody)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+
+        var body = this.client.get()
+                .uri("/customers/2")
+                .accept(org.springframework.http.MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(org.springframework.http.MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        var customerInformation = new CBORMapper().readValue(body, CustomerInformation.class);
+        Assertions.assertEquals(new CustomerInformation(2, "sam", 10000, List.of(new Holding(Ticker.APPLE, 5))), customerInformation);
+
+        this.client.get()
+                .uri("/customers/2")
+                .exchange()
+                .expectHeader().contentType(org.springframework.http.MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    void testBulkCustomerInformationIsDeduplicatedAndReportsMissingCustomers() {
+
+        this.mockServerClient.when(HttpRequest.request("/customers/11"))
+                .respond(HttpResponse.response("""
+                                {"id": 11, "name": "sam", "balance": 100, "holdings": []}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+        this.mockServerClient.when(HttpRequest.request("/customers/12"))
+                .respond(HttpResponse.response().withStatusCode(404));
+
+        var results = this.client.post()
+                .uri("/customers/lookup")
+                .contentType(org.springframework.http.MediaType.APPLICATION_NDJSON)
+                .accept(org.springframework.http.MediaType.APPLICATION_NDJSON)
+                .bodyValue("11\n12\n11\n")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Map.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        Assertions.assertEquals(2, results.size());
+        results.sort(Comparator.comparing(result -> result.containsKey("detail")));
+        Assertions.assertEquals(List.of("sam", "Customer [id=12] is not found"),
+                List.of(results.get(0).get("name"), results.get(1).get("detail")));
+        Assertions.assertEquals("/customers/12", results.get(1).get("instance"));
+
+        var repeated = this.client.get()
+                .uri("/customers?ids=11,11")
+                .accept(org.springframework.http.MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(CustomerInformation.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        Assertions.assertEquals(List.of(new CustomerInformation(11, "sam", 100, List.of())), repeated);
+
+        this.mockServerClient.verify(HttpRequest.request("/customers/11"), VerificationTimes.exactly(1));
+    }
 }
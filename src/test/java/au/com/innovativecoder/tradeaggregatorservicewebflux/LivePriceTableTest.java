@@ -0,0 +1,67 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.client.StockServiceClient;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockPriceResponse;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.service.LivePriceTable;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceIngestionEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+public class LivePriceTableTest {
+
+    private final StockServiceClient stockServiceClient = Mockito.mock(StockServiceClient.class);
+    private final PriceIngestionEngine priceIngestionEngine = Mockito.mock(PriceIngestionEngine.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testFreshPricesAreServedFromTheTable() {
+        Mockito.when(this.priceIngestionEngine.isConnected()).thenReturn(true);
+        var table = new LivePriceTable(this.stockServiceClient, this.priceIngestionEngine, Duration.ofMinutes(1), this.meterRegistry);
+
+        table.update(new PriceUpdate(Ticker.APPLE, 120, null));
+
+        Assertions.assertEquals(120, table.price(Ticker.APPLE).block());
+        Assertions.assertEquals(1, this.meterRegistry.counter("price.table.hit").count());
+        Mockito.verifyNoInteractions(this.stockServiceClient);
+    }
+
+    @Test
+    void testMissingAndStalePricesFallBackToTheStockService() {
+        Mockito.when(this.priceIngestionEngine.isConnected()).thenReturn(true);
+        Mockito.when(this.stockServiceClient.getStockPrice(Ticker.APPLE)).thenReturn(Mono.just(new StockPriceResponse(Ticker.APPLE, 130)));
+        var table = new LivePriceTable(this.stockServiceClient, this.priceIngestionEngine, Duration.ZERO, this.meterRegistry);
+
+        Assertions.assertEquals(130, table.price(Ticker.APPLE).block());
+        Assertions.assertEquals(0, this.meterRegistry.counter("price.table.stale").count());
+
+        table.update(new PriceUpdate(Ticker.APPLE, 120, null));
+        Assertions.assertEquals(130, table.price(Ticker.APPLE).block());
+        Assertions.assertEquals(1, this.meterRegistry.counter("price.table.stale").count());
+
+        Assertions.assertEquals(2, this.meterRegistry.counter("price.table.fallback").count());
+        Assertions.assertEquals(0, this.meterRegistry.counter("price.table.hit").count());
+        Mockito.verify(this.stockServiceClient, Mockito.times(2)).getStockPrice(Ticker.APPLE);
+    }
+
+    @Test
+    void testPricesOfADisconnectedFeedFallBackToTheStockService() {
+        Mockito.when(this.priceIngestionEngine.isConnected()).thenReturn(false);
+        Mockito.when(this.stockServiceClient.getStockPrice(Ticker.GOOGLE)).thenReturn(Mono.just(new StockPriceResponse(Ticker.GOOGLE, 90)));
+        var table = new LivePriceTable(this.stockServiceClient, this.priceIngestionEngine, Duration.ofMinutes(1), this.meterRegistry);
+
+        table.update(new PriceUpdate(Ticker.GOOGLE, 87, null));
+        table.update(new PriceUpdate(Ticker.GOOGLE, null, null));
+
+        Assertions.assertEquals(90, table.price(Ticker.GOOGLE).block());
+        Assertions.assertEquals(1, this.meterRegistry.counter("price.table.stale").count());
+        Assertions.assertEquals(1, this.meterRegistry.counter("price.table.fallback").count());
+        Mockito.verify(this.stockServiceClient).getStockPrice(Ticker.GOOGLE);
+    }
+}
@@ -0,0 +1,143 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.client.CustomerServiceClient;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.OrderStatus;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.OrderType;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.CustomerInformation;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.OrderRequest;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.RestingOrder;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeRequest;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeResponse;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.DownstreamUnavailableException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.InvalidTradeRequestException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.exceptions.OrderNotFoundException;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.service.CustomerInformationCache;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.service.CustomerPortfolioService;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.service.OrderEngine;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceIngestionEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OrderEngineTest {
+
+    @Test
+    void testOrdersFireOnceWhenThePriceCrossesTheirTrigger() {
+        var trades = new ArrayList<StockTradeRequest>();
+        var customerServiceClient = Mockito.mock(CustomerServiceClient.class);
+        Mockito.when(customerServiceClient.trade(ArgumentMatchers.eq(1), ArgumentMatchers.any())).thenAnswer(invocation -> {
+            StockTradeRequest request = invocation.getArgument(1);
+            trades.add(request);
+            return Mono.just(new StockTradeResponse(1, request.ticker(), request.price(), request.quantity(), request.action(), request.price() * request.quantity(), 0));
+        });
+        var customerInformationCache = Mockito.mock(CustomerInformationCache.class);
+        Mockito.when(customerInformationCache.get(1)).thenReturn(Mono.just(new CustomerInformation(1, "sam", 10000, List.of())));
+        var customerPortfolioService = Mockito.mock(CustomerPortfolioService.class);
+        var engine = new OrderEngine(customerServiceClient, customerInformationCache, Mockito.mock(PriceIngestionEngine.class), customerPortfolioService, 2, Duration.ofSeconds(5), 100, Duration.ofHours(1), new SimpleMeterRegistry());
+
+        var buyLimit = engine.place(1, new OrderRequest(Ticker.APPLE, TradeAction.BUY, 1, OrderType.LIMIT, 100)).block();
+        var sellStop = engine.place(1, new OrderRequest(Ticker.APPLE, TradeAction.SELL, 2, OrderType.STOP, 90)).block();
+        engine.place(1, new OrderRequest(Ticker.APPLE, TradeAction.BUY, 3, OrderType.STOP, 120)).block();
+        engine.place(1, new OrderRequest(Ticker.APPLE, TradeAction.SELL, 4, OrderType.LIMIT, 130)).block();
+        engine.place(1, new OrderRequest(Ticker.GOOGLE, TradeAction.BUY, 5, OrderType.LIMIT, 100)).block();
+
+        engine.match(new PriceUpdate(Ticker.APPLE, 110, null));
+        Assertions.assertTrue(trades.isEmpty());
+
+        engine.match(new PriceUpdate(Ticker.APPLE, 95, null));
+        engine.match(new PriceUpdate(Ticker.APPLE, 95, null));
+        Assertions.assertEquals(List.of(new StockTradeRequest(Ticker.APPLE, 95, 1, TradeAction.BUY)), trades);
+        Mockito.verify(customerPortfolioService).executed(ArgumentMatchers.eq(1), ArgumentMatchers.argThat(response -> response.quantity() == 1));
+
+        StepVerifier.create(engine.cancel(1, sellStop.id()))
+                .expectNext(sellStop.withStatus(OrderStatus.CANCELLED, null))
+                .verifyComplete();
+        StepVerifier.create(engine.cancel(1, buyLimit.id()))
+                .expectError(OrderNotFoundException.class)
+                .verify();
+
+        engine.match(new PriceUpdate(Ticker.APPLE, 130, null));
+        Assertions.assertEquals(List.of(
+                new StockTradeRequest(Ticker.APPLE, 95, 1, TradeAction.BUY),
+                new StockTradeRequest(Ticker.APPLE, 130, 3, TradeAction.BUY),
+                new StockTradeRequest(Ticker.APPLE, 130, 4, TradeAction.SELL)
+        ), trades.stream().sorted((a, b) -> a.quantity() - b.quantity()).toList());
+
+        StepVerifier.create(engine.orders(1).map(RestingOrder::status))
+                .expectNext(OrderStatus.FILLED, OrderStatus.CANCELLED, OrderStatus.FILLED, OrderStatus.FILLED, OrderStatus.OPEN)
+                .verifyComplete();
+    }
+
+    @Test
+    void testFiredOrdersAreBookedAgainWhenUnavailableAndKeptWhenFailed() throws InterruptedException {
+        var customerServiceClient = Mockito.mock(CustomerServiceClient.class);
+        Mockito.when(customerServiceClient.trade(ArgumentMatchers.eq(1), ArgumentMatchers.any()))
+                .thenReturn(Mono.error(new DownstreamUnavailableException("customer-service", "unavailable")))
+                .thenReturn(Mono.error(new InvalidTradeRequestException("Insufficient balance")))
+                .thenReturn(Mono.error(new IllegalStateException("connection reset by 10.0.0.7")));
+        var customerInformationCache = Mockito.mock(CustomerInformationCache.class);
+        Mockito.when(customerInformationCache.get(1)).thenReturn(Mono.just(new CustomerInformation(1, "sam", 10000, List.of())));
+        var rebookDelay = Duration.ofMillis(200);
+        var engine = new OrderEngine(customerServiceClient, customerInformationCache, Mockito.mock(PriceIngestionEngine.class), Mockito.mock(CustomerPortfolioService.class), 2, rebookDelay, 100, Duration.ofHours(1), new SimpleMeterRegistry());
+
+        var rejected = engine.place(1, new OrderRequest(Ticker.APPLE, TradeAction.BUY, 1, OrderType.LIMIT, 100)).block();
+        var failed = engine.place(1, new OrderRequest(Ticker.APPLE, TradeAction.BUY, 2, OrderType.LIMIT, 80)).block();
+
+        engine.match(new PriceUpdate(Ticker.APPLE, 95, null));
+        StepVerifier.create(engine.order(1, rejected.id()))
+                .expectNext(rejected)
+                .verifyComplete();
+
+        // The rejected order is held, so it does not fire again on every tick crossing its trigger price:
+        engine.match(new PriceUpdate(Ticker.APPLE, 95, null));
+        Mockito.verify(customerServiceClient, Mockito.times(1)).trade(ArgumentMatchers.eq(1), ArgumentMatchers.any());
+
+        Thread.sleep(rebookDelay.multipliedBy(3).toMillis());
+        engine.match(new PriceUpdate(Ticker.APPLE, 90, null));
+        StepVerifier.create(engine.order(1, rejected.id()))
+                .expectNext(rejected.withStatus(OrderStatus.FAILED, "Insufficient balance"))
+                .verifyComplete();
+        Mockito.verify(customerInformationCache, Mockito.never()).invalidate(1);
+
+        engine.match(new PriceUpdate(Ticker.APPLE, 80, null));
+        StepVerifier.create(engine.order(1, failed.id()))
+                .expectNext(failed.withStatus(OrderStatus.FAILED, "The trade could not be executed"))
+                .verifyComplete();
+        Mockito.verify(customerInformationCache).invalidate(1);
+        StepVerifier.create(engine.order(2, failed.id()))
+                .expectError(OrderNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void testHeldOrderCanBeCancelledAndIsNotBookedAgain() throws InterruptedException {
+        var customerServiceClient = Mockito.mock(CustomerServiceClient.class);
+        Mockito.when(customerServiceClient.trade(ArgumentMatchers.eq(1), ArgumentMatchers.any()))
+                .thenReturn(Mono.error(new DownstreamUnavailableException("customer-service", "unavailable")));
+        var customerInformationCache = Mockito.mock(CustomerInformationCache.class);
+        Mockito.when(customerInformationCache.get(1)).thenReturn(Mono.just(new CustomerInformation(1, "sam", 10000, List.of())));
+        var rebookDelay = Duration.ofMillis(200);
+        var engine = new OrderEngine(customerServiceClient, customerInformationCache, Mockito.mock(PriceIngestionEngine.class), Mockito.mock(CustomerPortfolioService.class), 2, rebookDelay, 100, Duration.ofHours(1), new SimpleMeterRegistry());
+
+        var order = engine.place(1, new OrderRequest(Ticker.APPLE, TradeAction.BUY, 1, OrderType.LIMIT, 100)).block();
+        engine.match(new PriceUpdate(Ticker.APPLE, 95, null));
+        StepVerifier.create(engine.cancel(1, order.id()))
+                .expectNext(order.withStatus(OrderStatus.CANCELLED, null))
+                .verifyComplete();
+
+        Thread.sleep(rebookDelay.multipliedBy(3).toMillis());
+        engine.match(new PriceUpdate(Ticker.APPLE, 95, null));
+        Mockito.verify(customerServiceClient, Mockito.times(1)).trade(ArgumentMatchers.eq(1), ArgumentMatchers.any());
+    }
+}
@@ -0,0 +1,138 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.HoldingValuation;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PortfolioValuation;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.TradeRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.model.Delay;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.model.MediaType;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class PortfolioValuationTest extends AbstractIntegrationTest {
+
+    @Test
+    void testValuationStartsAtLivePricesAndFollowsTrades() {
+
+        this.mockServerClient.when(HttpRequest.request("/customers/41"))
+                .respond(HttpResponse.response("""
+                                {"id": 41, "name": "sam", "balance": 1000, "holdings": [{"ticker": "GOOGLE", "quantity": 5}]}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+        this.mockServerClient.when(HttpRequest.request("/stock/GOOGLE"))
+                .respond(HttpResponse.response("""
+                                {"ticker": "GOOGLE", "price": 100}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+        this.mockServerClient.when(HttpRequest.request("/stock/AMAZON"))
+                .respond(HttpResponse.response("""
+                                {"ticker": "AMAZON", "price": 30}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+        this.mockServerClient.when(HttpRequest.request("/customers/41/trade").withMethod("POST"))
+                .respond(HttpResponse.response("""
+                                {"customer": 41, "ticker": "AMAZON", "price": 30, "quantity": 10, "action": "BUY", "totalPrice": 300, "balance": 700}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+
+        var valuations = this.client.get()
+                .uri("/customers/41/portfolio/stream")
+                .accept(org.springframework.http.MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(PortfolioValuation.class)
+                .getResponseBody();
+
+        StepVerifier.create(valuations)
+                .expectNext(new PortfolioValuation(41, 1000, 500L, 1500L, null))
+                .then(() -> this.client.post()
+                        .uri("/customers/41/trade")
+                        .bodyValue(new TradeRequest(Ticker.AMAZON, TradeAction.BUY, 10))
+                        .exchange()
+                        .expectStatus().isOk())
+                .assertNext(valuation -> {
+                    Assertions.assertEquals(new HoldingValuation(Ticker.AMAZON, 10, 30, 300L), valuation.holding());
+                    Assertions.assertEquals(700, valuation.balance());
+                    Assertions.assertEquals(800L, valuation.marketValue());
+                    Assertions.assertEquals(1500L, valuation.totalValue());
+                })
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void testTradeMadeWhileTheFirstValuationIsPricedIsAppliedAfterIt() {
+
+        this.mockServerClient.when(HttpRequest.request("/customers/42"))
+                .respond(HttpResponse.response("""
+                                {"id": 42, "name": "kim", "balance": 1000, "holdings": [{"ticker": "GOOGLE", "quantity": 5}]}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+        this.mockServerClient.when(HttpRequest.request("/stock/GOOGLE"))
+                .respond(HttpResponse.response("""
+                                {"ticker": "GOOGLE", "price": 100}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                        .withDelay(Delay.delay(TimeUnit.SECONDS, 1))
+                );
+        this.mockServerClient.when(HttpRequest.request("/stock/AMAZON"))
+                .respond(HttpResponse.response("""
+                                {"ticker": "AMAZON", "price": 30}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+        this.mockServerClient.when(HttpRequest.request("/customers/42/trade").withMethod("POST"))
+                .respond(HttpResponse.response("""
+                                {"customer": 42, "ticker": "AMAZON", "price": 30, "quantity": 10, "action": "BUY", "totalPrice": 300, "balance": 700}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+
+        // The trade is made while the GOOGLE price of the first valuation is still being looked up:
+        var trade = CompletableFuture.runAsync(() -> this.client.post()
+                        .uri("/customers/42/trade")
+                        .bodyValue(new TradeRequest(Ticker.AMAZON, TradeAction.BUY, 10))
+                        .exchange()
+                        .expectStatus().isOk(),
+                CompletableFuture.delayedExecutor(300, TimeUnit.MILLISECONDS));
+        var valuations = this.client.get()
+                .uri("/customers/42/portfolio/stream")
+                .accept(org.springframework.http.MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(PortfolioValuation.class)
+                .getResponseBody();
+
+        StepVerifier.create(valuations)
+                .expectNext(new PortfolioValuation(42, 1000, 500L, 1500L, null))
+                .assertNext(valuation -> {
+                    Assertions.assertEquals(new HoldingValuation(Ticker.AMAZON, 10, 30, 300L), valuation.holding());
+                    Assertions.assertEquals(700, valuation.balance());
+                    Assertions.assertEquals(800L, valuation.marketValue());
+                })
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+        trade.join();
+    }
+}
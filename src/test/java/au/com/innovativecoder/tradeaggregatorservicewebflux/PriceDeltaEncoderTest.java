@@ -0,0 +1,40 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceDeltaEncoder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+public class PriceDeltaEncoderTest {
+
+    @Test
+    void testDeltasAreRelativeToLastSentPriceAndKeyframesResync() {
+        var encoder = new PriceDeltaEncoder();
+
+        Assertions.assertNull(encoder.delta(new PriceUpdate(Ticker.APPLE, 100, null)));
+        encoder.subscribe(List.of(Ticker.APPLE));
+
+        var keyframe = ByteBuffer.wrap(encoder.keyframe());
+        Assertions.assertEquals(PriceDeltaEncoder.KEYFRAME, keyframe.get());
+        Assertions.assertTrue(keyframe.getLong() > 0);
+        Assertions.assertEquals(1, keyframe.get());
+        Assertions.assertEquals(Ticker.APPLE.ordinal(), keyframe.get());
+        Assertions.assertEquals((byte) 200, keyframe.get());
+        Assertions.assertEquals(1, keyframe.get());
+        Assertions.assertFalse(keyframe.hasRemaining());
+
+        var delta = encoder.delta(new PriceUpdate(Ticker.APPLE, 97, null));
+        Assertions.assertEquals(PriceDeltaEncoder.DELTA, delta[0]);
+        Assertions.assertEquals(Ticker.APPLE.ordinal(), delta[1]);
+        Assertions.assertEquals(5, delta[2]);
+        Assertions.assertTrue(delta.length <= 6);
+        Assertions.assertEquals(4, encoder.delta(new PriceUpdate(Ticker.APPLE, 99, null))[2]);
+
+        encoder.unsubscribe(List.of(Ticker.APPLE));
+        Assertions.assertNull(encoder.delta(new PriceUpdate(Ticker.APPLE, 98, null)));
+    }
+}
@@ -0,0 +1,151 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceDeltaEncoder;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceStreamBroadcaster;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.client.MockServerClient;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.springtest.MockServerTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@MockServerTest
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "customer.service.url=http://localhost:${mockServerPort}",
+        "stock.service.url=http://localhost:${mockServerPort}",
+        "trade.journal.directory=build/trade-journal",
+        "price.feed.reconnect.max-backoff=200ms",
+        "price.ws.keyframe-interval=1h"
+})
+public class PriceFeedWebSocketTest {
+
+    // It is set by the mock server test automatically
+    protected MockServerClient mockServerClient;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private PriceStreamBroadcaster priceStreamBroadcaster;
+
+    private final Sinks.Many<String> commands = Sinks.many().unicast().onBackpressureBuffer();
+    private final BlockingQueue<byte[]> frames = new LinkedBlockingQueue<>();
+    private final CompletableFuture<CloseStatus> closeStatus = new CompletableFuture<>();
+
+    @Test
+    void testSubscribeIsAnsweredWithAKeyframeAndUnsubscribeStopsTheDeltas() throws InterruptedException {
+
+        this.mockServerClient.when(HttpRequest.request("/stock/price-stream"))
+                .respond(HttpResponse.response("data: {\"ticker\": \"APPLE\", \"price\": 110}\n\n")
+                        .withStatusCode(200)
+                        .withHeader("Content-Type", "text/event-stream")
+                );
+
+        var connection = this.connect();
+        try {
+            this.awaitLatestPrice(Ticker.APPLE);
+
+            this.send("""
+                    {"action": "SUBSCRIBE", "tickers": ["APPLE"]}""");
+            var keyframe = ByteBuffer.wrap(this.nextKeyframe());
+            keyframe.position(1 + Long.BYTES);
+            Assertions.assertEquals(1, keyframe.get());
+            Assertions.assertEquals(Ticker.APPLE.ordinal(), keyframe.get());
+            Assertions.assertEquals(110, this.readVarint(keyframe));
+
+            this.send("""
+                    {"action": "UNSUBSCRIBE", "tickers": ["APPLE"]}""");
+            this.send("""
+                    {"action": "SUBSCRIBE", "tickers": []}""");
+            keyframe = ByteBuffer.wrap(this.nextKeyframe());
+            keyframe.position(1 + Long.BYTES);
+            Assertions.assertEquals(0, keyframe.get());
+
+            // The feed keeps reconnecting and replaying the APPLE price, which is no longer sent to this client:
+            Assertions.assertNull(this.frames.poll(1, TimeUnit.SECONDS));
+        } finally {
+            connection.dispose();
+        }
+    }
+
+    @Test
+    void testInvalidCommandClosesTheConnectionWithBadData() throws Exception {
+        this.connect();
+
+        this.send("""
+                {"action": "SUBSCRIBE", "tickers": ["NOT_A_TICKER"]}""");
+
+        var status = this.closeStatus.get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(CloseStatus.BAD_DATA.getCode(), status.getCode());
+        Assertions.assertEquals("invalid command", status.getReason());
+    }
+
+    private Disposable connect() {
+        return new ReactorNettyWebSocketClient()
+                .execute(URI.create("ws://localhost:" + this.port + "/stock/price-ws"), session -> session
+                        .send(this.commands.asFlux().map(session::textMessage))
+                        .and(session.receive()
+                                .map(this::bytes)
+                                .doOnNext(this.frames::add))
+                        .and(session.closeStatus()
+                                .doOnNext(this.closeStatus::complete)))
+                .subscribe();
+    }
+
+    private void send(String command) {
+        this.commands.tryEmitNext(command);
+    }
+
+    private void awaitLatestPrice(Ticker ticker) throws InterruptedException {
+        var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (this.priceStreamBroadcaster.latest(ticker).isEmpty()) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "no price received for " + ticker);
+            Thread.sleep(50);
+        }
+    }
+
+    private byte[] nextKeyframe() throws InterruptedException {
+        while (true) {
+            var frame = this.frames.poll(5, TimeUnit.SECONDS);
+            Assertions.assertNotNull(frame, "no keyframe received");
+            if (frame[0] == PriceDeltaEncoder.KEYFRAME) {
+                return frame;
+            }
+        }
+    }
+
+    private byte[] bytes(WebSocketMessage message) {
+        var buffer = message.getPayload();
+        var bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        return bytes;
+    }
+
+    private long readVarint(ByteBuffer buffer) {
+        long zigzag = 0;
+        for (int shift = 0; ; shift += 7) {
+            var b = buffer.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+    }
+}
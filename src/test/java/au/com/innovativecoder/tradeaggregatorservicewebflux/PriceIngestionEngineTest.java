@@ -0,0 +1,52 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.client.StockServiceClient;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceIngestionEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PriceIngestionEngineTest {
+
+    @Test
+    void testReconnectsWithSingleConnectionAndReplaysLatestPricePerTicker() throws InterruptedException {
+        var connections = new AtomicInteger();
+        var open = new AtomicInteger();
+        var maxOpen = new AtomicInteger();
+        var stockServiceClient = Mockito.mock(StockServiceClient.class);
+        Mockito.when(stockServiceClient.priceUpdates()).thenReturn(Flux.defer(() -> {
+            maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+            var updates = switch (connections.incrementAndGet()) {
+                case 1 -> Flux.just(new PriceUpdate(Ticker.APPLE, 1, null), new PriceUpdate(Ticker.GOOGLE, 2, null));
+                case 2 -> Flux.<PriceUpdate>error(new IllegalStateException("stock service restarting"));
+                default -> Flux.just(new PriceUpdate(Ticker.APPLE, 3, null)).concatWith(Flux.never());
+            };
+            return updates.doFinally(signal -> open.decrementAndGet());
+        }));
+        var registry = new SimpleMeterRegistry();
+        var engine = new PriceIngestionEngine(stockServiceClient, Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofSeconds(10), registry);
+
+        engine.start();
+        for (int i = 0; i < 200 && connections.get() < 3; i++) {
+            Thread.sleep(10);
+        }
+
+        StepVerifier.create(engine.updates().take(2).collectList())
+                .expectNext(List.of(new PriceUpdate(Ticker.APPLE, 3, null), new PriceUpdate(Ticker.GOOGLE, 2, null)))
+                .verifyComplete();
+        Assertions.assertTrue(engine.isConnected());
+        Assertions.assertFalse(engine.isStale());
+        Assertions.assertEquals(1, maxOpen.get());
+        Assertions.assertEquals(2, registry.counter("stock.service.price-stream.reconnects").count());
+        engine.stop();
+    }
+}
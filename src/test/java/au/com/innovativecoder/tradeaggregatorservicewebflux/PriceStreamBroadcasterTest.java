@@ -0,0 +1,158 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceIngestionEngine;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceFrame;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceStreamBroadcaster;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.codec.ServerSentEventHttpMessageWriter;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class PriceStreamBroadcasterTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final List<PriceUpdate> updates = List.of(
+            new PriceUpdate(Ticker.APPLE, 120, LocalDateTime.of(2024, 8, 1, 10, 15, 30, 123456789)),
+            new PriceUpdate(Ticker.GOOGLE, 87, LocalDateTime.of(2024, 8, 1, 10, 15, 31)),
+            new PriceUpdate(Ticker.AMAZON, null, null)
+    );
+
+    @Test
+    void testFramesAreByteIdenticalToServerSentEventWriter() {
+        var sink = Sinks.many().multicast().<PriceUpdate>onBackpressureBuffer();
+        var actual = new MockServerHttpResponse();
+        var broadcaster = new PriceStreamBroadcaster(this.priceIngestionEngine(sink.asFlux()), this.objectMapper, 2, new SimpleMeterRegistry());
+        var frames = broadcaster.frames().collectList().toFuture();
+        var written = broadcaster.write(broadcaster.frames(), actual).toFuture();
+        this.updates.forEach(sink::tryEmitNext);
+        sink.tryEmitComplete();
+        written.join();
+
+        var expected = new MockServerHttpResponse();
+        var events = Flux.fromIterable(frames.join())
+                .map(frame -> ServerSentEvent.builder(frame.update()).id(frame.id()).build());
+        new ServerSentEventHttpMessageWriter(new Jackson2JsonEncoder(this.objectMapper))
+                .write(events, ResolvableType.forClassWithGenerics(ServerSentEvent.class, PriceUpdate.class), MediaType.TEXT_EVENT_STREAM, expected, Map.of())
+                .block();
+
+        Assertions.assertEquals(expected.getHeaders().getContentType(), actual.getHeaders().getContentType());
+        Assertions.assertEquals(expected.getBodyAsString().block(), actual.getBodyAsString().block());
+    }
+
+    @Test
+    void testSubscribersShareEncodedFrames() {
+        var sink = Sinks.many().multicast().<PriceUpdate>onBackpressureBuffer();
+        var broadcaster = new PriceStreamBroadcaster(this.priceIngestionEngine(sink.asFlux()), this.objectMapper, 2, new SimpleMeterRegistry());
+
+        var firstFrames = broadcaster.frames().collectList().toFuture();
+        var secondFrames = broadcaster.frames().collectList().toFuture();
+        this.updates.forEach(sink::tryEmitNext);
+        sink.tryEmitComplete();
+        var first = firstFrames.join();
+        var second = secondFrames.join();
+
+        Assertions.assertEquals(this.updates.size(), first.size());
+        for (int i = 0; i < first.size(); i++) {
+            Assertions.assertSame(first.get(i).bytes(), second.get(i).bytes());
+        }
+    }
+
+    @Test
+    void testTickerFramesOnlyContainRequestedTicker() {
+        var broadcaster = new PriceStreamBroadcaster(this.priceIngestionEngine(Flux.fromIterable(this.updates)), this.objectMapper, 2, new SimpleMeterRegistry());
+
+        var frames = broadcaster.frames(Set.of(Ticker.GOOGLE)).collectList().block();
+
+        Assertions.assertEquals(1, frames.size());
+        Assertions.assertEquals(Ticker.GOOGLE, frames.get(0).ticker());
+    }
+
+    @Test
+    void testResumeReplaysJournalOrFallsBackToSnapshotForEvictedOrOtherEpochIds() {
+        var sink = Sinks.many().multicast().<PriceUpdate>onBackpressureBuffer();
+        var broadcaster = new PriceStreamBroadcaster(this.priceIngestionEngine(sink.asFlux()), this.objectMapper, 2, new SimpleMeterRegistry());
+        var live = broadcaster.frames().take(this.updates.size()).collectList().toFuture();
+        this.updates.forEach(sink::tryEmitNext);
+        var frames = live.join();
+        var next = new PriceUpdate(Ticker.APPLE, 121, null);
+
+        var replayed = broadcaster.frames(List.of(), frames.get(0).id()).take(3).collectList().toFuture();
+        var evicted = broadcaster.frames(List.of(), frames.get(0).id().replaceFirst("\\d+$", "0")).take(4).collectList().toFuture();
+        var restarted = broadcaster.frames(List.of(), "restarted-" + frames.get(0).sequence()).take(4).collectList().toFuture();
+        sink.tryEmitNext(next);
+
+        Assertions.assertEquals(List.of(this.updates.get(1), this.updates.get(2), next), replayed.join().stream().map(PriceFrame::update).toList());
+        for (var snapshot : List.of(evicted.join(), restarted.join())) {
+            Assertions.assertEquals(Set.copyOf(this.updates), snapshot.stream().limit(3).map(PriceFrame::update).collect(Collectors.toSet()));
+            Assertions.assertEquals(next, snapshot.get(3).update());
+        }
+    }
+
+    @Test
+    void testResumeWritesEveryMissedFrameAheadOfTheConflatedLiveFrames() {
+        var sink = Sinks.many().multicast().<PriceUpdate>onBackpressureBuffer();
+        var broadcaster = new PriceStreamBroadcaster(this.priceIngestionEngine(sink.asFlux()), this.objectMapper, 1024, new SimpleMeterRegistry());
+        // Well above the prefetch of the response writer, so the gap cannot be written in one request:
+        var missed = 200;
+        var live = broadcaster.frames().take(missed + 1).collectList().toFuture();
+        for (int price = 0; price <= missed; price++) {
+            sink.tryEmitNext(new PriceUpdate(Ticker.APPLE, price, null));
+        }
+        var first = live.join().get(0);
+
+        // A slow client, which requests one buffer at a time like a network connection does:
+        var body = new StringBuilder();
+        var response = new MockServerHttpResponse();
+        response.setWriteHandler(buffers -> Flux.from(buffers)
+                .delayElements(Duration.ofMillis(1))
+                .doOnNext(buffer -> body.append(buffer.toString(StandardCharsets.UTF_8)))
+                .then());
+        var written = broadcaster.write(broadcaster.frames(List.of(Ticker.APPLE), first.id()), response).toFuture();
+        sink.tryEmitComplete();
+        written.join();
+
+        var prices = body.toString().lines()
+                .filter(line -> line.startsWith("data:"))
+                .map(line -> this.read(line.substring("data:".length())).price())
+                .toList();
+        Assertions.assertEquals(IntStream.rangeClosed(1, missed).boxed().toList(), prices);
+    }
+
+    private PriceUpdate read(String json) {
+        try {
+            return this.objectMapper.readValue(json, PriceUpdate.class);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private PriceIngestionEngine priceIngestionEngine(Flux<PriceUpdate> updates) {
+        var priceIngestionEngine = Mockito.mock(PriceIngestionEngine.class);
+        Mockito.when(priceIngestionEngine.updates()).thenReturn(updates);
+        return priceIngestionEngine;
+    }
+}
@@ -0,0 +1,84 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.client.PriceUpdateDecoder;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class PriceUpdateDecoderTest {
+
+    private static final int DEFAULT_CHUNK = 64 * 1024;
+
+    private static final String STREAM = """
+            :keep-alive
+
+            id: 1
+            event: price
+            data: {"ticker":"APPLE","price":120,"time":"2024-08-01T10:15:30.123456789"}
+
+            data:{ "time" : "2024-08-01T10:15", "extra": {"a": [1, "}"]}, "price": -5, "ticker": "GOOGLE" }\r
+            \r
+            data: {"ticker":"AMA\\u005AON","price":null,"time":"2024-08-01T10:15:30.5"}
+
+            data: {"ticker":"BABATATA",
+            data: "price":70000}
+
+            """;
+
+    private static final List<PriceUpdate> EXPECTED = List.of(
+            new PriceUpdate(Ticker.APPLE, 120, LocalDateTime.of(2024, 8, 1, 10, 15, 30, 123456789)),
+            new PriceUpdate(Ticker.GOOGLE, -5, LocalDateTime.of(2024, 8, 1, 10, 15)),
+            new PriceUpdate(Ticker.AMAZON, null, LocalDateTime.of(2024, 8, 1, 10, 15, 30, 500_000_000)),
+            new PriceUpdate(Ticker.BABATATA, 70000, null)
+    );
+
+    @Test
+    void testEventsAreDecodedWhereverTheBuffersAreSplit() {
+        var bytes = STREAM.getBytes(StandardCharsets.UTF_8);
+        for (var split = 0; split <= bytes.length; split++) {
+            var decoder = new PriceUpdateDecoder();
+            var updates = new ArrayList<PriceUpdate>();
+            updates.addAll(decoder.decode(DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(bytes, 0, split))));
+            updates.addAll(decoder.decode(DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(bytes, split, bytes.length))));
+            Assertions.assertEquals(EXPECTED, updates, "split at " + split);
+        }
+
+        var singleBytes = Flux.range(0, bytes.length)
+                .<DataBuffer>map(i -> DefaultDataBufferFactory.sharedInstance.wrap(new byte[]{bytes[i]}));
+        Assertions.assertEquals(EXPECTED, PriceUpdateDecoder.decode(singleBytes).collectList().block());
+    }
+
+    @Test
+    void testEventsAboveTheMaximumSizeFailTheStream() {
+        var event = "data: {\"ticker\":\"APPLE\",\"price\":120}\n\n";
+        var decoder = new PriceUpdateDecoder(event.length());
+        var update = new PriceUpdate(Ticker.APPLE, 120, null);
+        Assertions.assertEquals(List.of(update, update), decoder.decode(this.buffer(event + event)));
+
+        var split = new PriceUpdateDecoder(event.length());
+        split.decode(this.buffer("data: {\"ticker\":\"APPLE\","));
+        Assertions.assertThrows(DataBufferLimitException.class, () -> split.decode(this.buffer("\ndata: \"price\":" + "1".repeat(event.length()))));
+
+        var unterminated = Flux.just("data: ", "x".repeat(DEFAULT_CHUNK), "x".repeat(DEFAULT_CHUNK))
+                .repeat()
+                .map(this::buffer);
+        StepVerifier.create(PriceUpdateDecoder.decode(unterminated))
+                .verifyError(DataBufferLimitException.class);
+    }
+
+    private DataBuffer buffer(String value) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,78 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.HedgeProperties;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.RequestHedger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RequestHedgerTest {
+
+    @Test
+    void testSlowCallsAreHedgedWithinTheBudget() {
+        var properties = new HedgeProperties();
+        properties.setEnabled(true);
+        properties.setWindow(10);
+        properties.setMinSamples(10);
+        properties.setMinDelay(Duration.ofMillis(20));
+        properties.setBudget(0.5);
+        properties.setMaxTokens(1);
+        var meterRegistry = new SimpleMeterRegistry();
+        var hedger = new RequestHedger("test", properties, meterRegistry);
+
+        for (var i = 0; i < 10; i++) {
+            Assertions.assertEquals("fast", hedger.hedge(Mono.just("fast")).block());
+        }
+
+        var attempts = new AtomicInteger();
+        var cancelled = new AtomicBoolean();
+        var slowThenFast = Mono.defer(() -> attempts.getAndIncrement() % 2 == 0
+                ? Mono.just("slow").delayElement(Duration.ofMillis(500)).doOnCancel(() -> cancelled.set(true))
+                : Mono.just("fast"));
+
+        StepVerifier.create(hedger.hedge(slowThenFast))
+                .expectNext("fast")
+                .verifyComplete();
+        Assertions.assertTrue(cancelled.get());
+
+        StepVerifier.create(hedger.hedge(slowThenFast))
+                .expectNext("slow")
+                .verifyComplete();
+
+        StepVerifier.create(hedger.hedge(Mono.error(new IllegalStateException("failed"))))
+                .verifyErrorMessage("failed");
+
+        Assertions.assertEquals(13, meterRegistry.counter("downstream.hedge.calls", "downstream", "test").count());
+        Assertions.assertEquals(1, meterRegistry.counter("downstream.hedge.hedged", "downstream", "test").count());
+        Assertions.assertEquals(1, meterRegistry.counter("downstream.hedge.won", "downstream", "test").count());
+        Assertions.assertEquals(1, meterRegistry.counter("downstream.hedge.budget-exhausted", "downstream", "test").count());
+    }
+
+    @Test
+    void testCancelledAttemptsAreSampledWithTheTimeTheyRan() {
+        var properties = new HedgeProperties();
+        properties.setEnabled(true);
+        properties.setWindow(10);
+        properties.setMinSamples(10);
+        var meterRegistry = new SimpleMeterRegistry();
+        var hedger = new RequestHedger("test", properties, meterRegistry);
+
+        for (var i = 0; i < 9; i++) {
+            Assertions.assertEquals("fast", hedger.hedge(Mono.just("fast")).block());
+        }
+        StepVerifier.create(hedger.hedge(Mono.never()))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+
+        var delay = meterRegistry.get("downstream.hedge.delay").tag("downstream", "test").gauge().value();
+        Assertions.assertTrue(delay >= 0.05, "delay " + delay + " should cover the cancelled attempt");
+    }
+}
@@ -0,0 +1,47 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.CandleInterval;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.Candle;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.PriceUpdate;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.Tick;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.PriceIngestionEngine;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.stream.TickHistory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class TickHistoryTest {
+
+    @Test
+    void testCandlesAreMaintainedIncrementallyAndTicksWrapAround() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var history = new TickHistory(Mockito.mock(PriceIngestionEngine.class), 3, 2, meterRegistry);
+        var start = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+        history.record(new PriceUpdate(Ticker.APPLE, 100, start.plusSeconds(5)));
+        history.record(new PriceUpdate(Ticker.APPLE, 120, start.plusSeconds(20)));
+        history.record(new PriceUpdate(Ticker.APPLE, 90, start.plusSeconds(40)));
+        history.record(new PriceUpdate(Ticker.APPLE, 110, start.plusMinutes(1)));
+        history.record(new PriceUpdate(Ticker.APPLE, 50, start.plusSeconds(30)));
+        history.record(new PriceUpdate(Ticker.GOOGLE, 7, start));
+
+        Assertions.assertEquals(List.of(
+                new Candle(Ticker.APPLE, start, 100, 120, 90, 90, 3),
+                new Candle(Ticker.APPLE, start.plusMinutes(1), 110, 110, 110, 110, 1)
+        ), history.candles(Ticker.APPLE, CandleInterval.ONE_MINUTE, 5));
+        Assertions.assertEquals(List.of(
+                new Candle(Ticker.APPLE, start.plusMinutes(1), 110, 110, 110, 110, 1)
+        ), history.candles(Ticker.APPLE, CandleInterval.ONE_MINUTE, 1));
+        Assertions.assertEquals(List.of(
+                new Tick(start.plusSeconds(20), 120),
+                new Tick(start.plusSeconds(40), 90),
+                new Tick(start.plusMinutes(1), 110)
+        ), history.ticks(Ticker.APPLE, 10));
+        Assertions.assertEquals(1, meterRegistry.counter("tick.history.late").count());
+    }
+}
@@ -0,0 +1,72 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.TradeRequest;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.Deadline;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.model.Delay;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.model.MediaType;
+import org.mockserver.verify.VerificationTimes;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.TimeUnit;
+
+public class TradeDeadlineTest extends AbstractIntegrationTest {
+
+    @Test
+    void testTradeIsCancelledWhenItsDeadlineExpires() {
+
+        this.mockServerClient.when(HttpRequest.request("/stock/BABATATA"))
+                .respond(HttpResponse.response("""
+                                {"ticker": "BABATATA", "price": 50}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+        this.mockServerClient.when(HttpRequest.request("/customers/21/trade").withMethod("POST"))
+                .respond(HttpResponse.response("{}")
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                        .withDelay(Delay.delay(TimeUnit.SECONDS, 5))
+                );
+
+        this.mockServerClient.when(HttpRequest.request("/customers/21").withMethod("GET"))
+                .respond(HttpResponse.response("""
+                                {"id": 21, "name": "sam", "balance": 100, "holdings": []}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+        this.getCustomerInformation();
+
+        var start = System.nanoTime();
+        this.client.post()
+                .uri("/customers/21/trade")
+                .header(Deadline.HEADER, "300")
+                .bodyValue(new TradeRequest(Ticker.BABATATA, TradeAction.BUY, 2))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.GATEWAY_TIMEOUT)
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Deadline Exceeded");
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+
+        var forwarded = this.mockServerClient.retrieveRecordedRequests(HttpRequest.request("/customers/21/trade"))[0]
+                .getFirstHeader(Deadline.HEADER);
+        Assertions.assertTrue(Long.parseLong(forwarded) <= 300, forwarded);
+
+        // the trade may have been executed, so the cached customer information is discarded
+        this.getCustomerInformation();
+        this.mockServerClient.verify(HttpRequest.request("/customers/21").withMethod("GET"), VerificationTimes.exactly(2));
+    }
+
+    private void getCustomerInformation() {
+        this.client.get()
+                .uri("/customers/21")
+                .exchange()
+                .expectStatus().is2xxSuccessful();
+    }
+}
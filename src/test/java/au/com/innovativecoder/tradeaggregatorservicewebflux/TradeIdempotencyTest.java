@@ -0,0 +1,109 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeResponse;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.TradeRequest;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.resilience.Deadline;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.model.Delay;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.model.MediaType;
+import org.mockserver.verify.VerificationTimes;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class TradeIdempotencyTest extends AbstractIntegrationTest {
+
+    private static final String TRADE_RESPONSE = """
+            {"customer": 31, "ticker": "BABATATA", "price": 50, "quantity": 2, "action": "BUY", "totalPrice": 100, "balance": 900}
+            """;
+
+    @Test
+    void testDuplicateTradesAreExecutedOnce() {
+
+        this.mockServerClient.when(HttpRequest.request("/stock/BABATATA"))
+                .respond(HttpResponse.response("""
+                                {"ticker": "BABATATA", "price": 50}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+        this.mockServerClient.when(HttpRequest.request("/customers/31/trade").withMethod("POST"))
+                .respond(HttpResponse.response(TRADE_RESPONSE)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                        .withDelay(Delay.delay(TimeUnit.MILLISECONDS, 500))
+                );
+
+        var request = new TradeRequest(Ticker.BABATATA, TradeAction.BUY, 2);
+        var concurrent = CompletableFuture.supplyAsync(() -> this.trade("key-1", request));
+        var first = this.trade("key-1", request);
+        Assertions.assertEquals(first, concurrent.join());
+        Assertions.assertEquals(first, this.trade("key-1", request));
+        Assertions.assertEquals(900, first.balance());
+
+        this.mockServerClient.verify(HttpRequest.request("/customers/31/trade"), VerificationTimes.exactly(1));
+
+        this.client.post()
+                .uri("/customers/31/trade")
+                .header("Idempotency-Key", "key-1")
+                .bodyValue(new TradeRequest(Ticker.BABATATA, TradeAction.SELL, 2))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.detail").isEqualTo("Idempotency-Key key-1 was used for a different trade request");
+    }
+
+    @Test
+    void testRetryAfterDeadlineReceivesTheTradeInFlight() {
+
+        this.mockServerClient.when(HttpRequest.request("/stock/BABATATA"))
+                .respond(HttpResponse.response("""
+                                {"ticker": "BABATATA", "price": 50}
+                                """)
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                );
+        this.mockServerClient.when(HttpRequest.request("/customers/32/trade").withMethod("POST"))
+                .respond(HttpResponse.response(TRADE_RESPONSE.replace("31", "32"))
+                        .withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                        .withDelay(Delay.delay(TimeUnit.MILLISECONDS, 1000))
+                );
+
+        var request = new TradeRequest(Ticker.BABATATA, TradeAction.BUY, 2);
+        this.client.post()
+                .uri("/customers/32/trade")
+                .header("Idempotency-Key", "key-2")
+                .header(Deadline.HEADER, "200")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+
+        var retried = this.trade(32, "key-2", request);
+        Assertions.assertEquals(32, retried.customer());
+        Assertions.assertEquals(900, retried.balance());
+        this.mockServerClient.verify(HttpRequest.request("/customers/32/trade"), VerificationTimes.exactly(1));
+    }
+
+    private StockTradeResponse trade(String idempotencyKey, TradeRequest request) {
+        return this.trade(31, idempotencyKey, request);
+    }
+
+    private StockTradeResponse trade(Integer customerId, String idempotencyKey, TradeRequest request) {
+        return this.client.post()
+                .uri("/customers/{customerId}/trade", customerId)
+                .header("Idempotency-Key", idempotencyKey)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectBody(StockTradeResponse.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
@@ -0,0 +1,88 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.JournaledTrade;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.StockTradeResponse;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.journal.TradeJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
+
+public class TradeJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testTradesAreReplayedAcrossSegmentsAndRestarts() throws Exception {
+        var journal = this.journal();
+        for (var i = 1; i <= 5; i++) {
+            journal.append(new StockTradeResponse(i % 2, Ticker.APPLE, 100 + i, i, TradeAction.BUY, (100 + i) * i, 1000 - i));
+        }
+        journal.stop();
+
+        try (var files = Files.list(this.directory)) {
+            Assertions.assertEquals(2, files.count());
+        }
+
+        var reopened = this.journal();
+        reopened.append(new StockTradeResponse(1, Ticker.GOOGLE, 50, 2, TradeAction.SELL, 100, 2000));
+        reopened.stop();
+
+        // the last segment was not full, so it was reopened for appending
+        try (var files = Files.list(this.directory)) {
+            Assertions.assertEquals(2, files.count());
+        }
+
+        var all = reopened.replay(0, Long.MAX_VALUE).collectList().block();
+        Assertions.assertEquals(List.of(101, 102, 103, 104, 105, 50), all.stream().map(JournaledTrade::price).toList());
+
+        var customer = reopened.trades(1, 0, Long.MAX_VALUE).collectList().block();
+        Assertions.assertEquals(4, customer.size());
+        var last = customer.getLast();
+        Assertions.assertEquals(new JournaledTrade(last.time(), 1, Ticker.GOOGLE, TradeAction.SELL, 50, 2, 100, 2000), last);
+
+        var from = all.get(5).time().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Assertions.assertTrue(reopened.replay(from + 1, Long.MAX_VALUE).collectList().block().isEmpty());
+    }
+
+    @Test
+    void testSegmentsAreOnlyCreatedWhenWrittenAndRetiredBeyondTheMaximumSize() throws Exception {
+        this.journal().stop();
+        try (var files = Files.list(this.directory)) {
+            Assertions.assertEquals(0, files.count());
+        }
+
+        var journal = this.journal(DataSize.ofBytes(2 * 3 * 32));
+        for (var i = 1; i <= 10; i++) {
+            journal.append(new StockTradeResponse(1, Ticker.APPLE, 100 + i, 1, TradeAction.BUY, 100 + i, 1000));
+        }
+        journal.stop();
+
+        try (var files = Files.list(this.directory)) {
+            Assertions.assertEquals(2, files.count());
+        }
+        var all = journal.replay(0, Long.MAX_VALUE).collectList().block();
+        Assertions.assertEquals(List.of(107, 108, 109, 110), all.stream().map(JournaledTrade::price).toList());
+    }
+
+    private TradeJournal journal() throws Exception {
+        return this.journal(DataSize.ofGigabytes(1));
+    }
+
+    private TradeJournal journal(DataSize maxSize) throws Exception {
+        var journal = new TradeJournal(this.directory, DataSize.ofBytes(3 * 32), 16, TradeJournal.FsyncPolicy.ALWAYS, Duration.ofSeconds(1),
+                Duration.ofDays(7), maxSize, new SimpleMeterRegistry());
+        journal.start();
+        return journal;
+    }
+}
@@ -0,0 +1,46 @@
+package au.com.innovativecoder.tradeaggregatorservicewebflux;
+
+import au.com.innovativecoder.tradeaggregatorservicewebflux.client.CustomerServiceClient;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.Ticker;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.domain.TradeAction;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.dto.TradeRequest;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.journal.TradeJournal;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.service.CustomerInformationCache;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.service.CustomerPortfolioService;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.service.LivePriceTable;
+import au.com.innovativecoder.tradeaggregatorservicewebflux.service.TradeIdempotencyStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+
+public class UnknownTradeOutcomeTest {
+
+    private final LivePriceTable livePriceTable = Mockito.mock(LivePriceTable.class);
+    private final CustomerServiceClient customerServiceClient = Mockito.mock(CustomerServiceClient.class);
+    private final CustomerInformationCache customerInformationCache = Mockito.mock(CustomerInformationCache.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testOnlyATradeCancelledAfterItWasSentHasAnUnknownOutcome() {
+        Mockito.when(this.livePriceTable.batchLookup()).thenReturn(ticker -> Mono.just(50));
+        Mockito.when(this.customerServiceClient.trade(ArgumentMatchers.any(), ArgumentMatchers.any())).thenReturn(Mono.never());
+        var service = new CustomerPortfolioService(this.livePriceTable, this.customerServiceClient, this.customerInformationCache,
+                Mockito.mock(TradeJournal.class), Mockito.mock(TradeIdempotencyStore.class), 1, 1, this.meterRegistry);
+        var trade = service.batchTrade(21);
+
+        var sent = trade.apply(new TradeRequest(Ticker.APPLE, TradeAction.BUY, 1)).subscribe();
+        var queued = trade.apply(new TradeRequest(Ticker.GOOGLE, TradeAction.BUY, 1)).subscribe();
+
+        // The second trade waits for the bulkhead, so cancelling it never reaches the customer service:
+        queued.dispose();
+        Assertions.assertEquals(0, this.meterRegistry.counter("trade.outcome.unknown").count());
+        Mockito.verify(this.customerInformationCache, Mockito.never()).invalidate(21);
+
+        sent.dispose();
+        Assertions.assertEquals(1, this.meterRegistry.counter("trade.outcome.unknown").count());
+        Mockito.verify(this.customerInformationCache).invalidate(21);
+    }
+}